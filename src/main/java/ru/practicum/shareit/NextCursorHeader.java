@@ -0,0 +1,18 @@
+package ru.practicum.shareit;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+public class NextCursorHeader {
+    public static final String NAME = "X-Next-Cursor";
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static <T> ResponseEntity<List<T>> ok(List<T> body, String nextCursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NAME, nextCursor);
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.annotation.AbstractNamedValueMethodArgumentResolver;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Component
+public class SharerUserIdResolver extends AbstractNamedValueMethodArgumentResolver implements WebMvcConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(this);
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(SharerUserId.class);
+    }
+
+    @Override
+    protected NamedValueInfo createNamedValueInfo(MethodParameter parameter) {
+        return new NamedValueInfo(SharerUserId.HEADER, true, null);
+    }
+
+    @Override
+    protected Object resolveName(String name, MethodParameter parameter, NativeWebRequest request) {
+        return request.getHeader(name);
+    }
+
+    @Override
+    protected void handleMissingValue(String name, MethodParameter parameter, NativeWebRequest request) throws Exception {
+        throw new MissingRequestHeaderException(name, parameter);
+    }
+}
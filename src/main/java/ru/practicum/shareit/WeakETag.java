@@ -0,0 +1,10 @@
+package ru.practicum.shareit;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public class WeakETag {
+    public static String of(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-", "W/\"", "\""));
+    }
+}
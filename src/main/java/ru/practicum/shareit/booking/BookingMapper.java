@@ -1,9 +1,12 @@
 package ru.practicum.shareit.booking;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemDtoShort;
 import ru.practicum.shareit.user.UserMapper;
+import ru.practicum.shareit.user.dto.UserDtoShort;
 
 public class BookingMapper {
     public static BookingDto toBookingDto(Booking booking) {
@@ -20,6 +23,25 @@ public class BookingMapper {
 
     }
 
+    public static BookingDto toBookingDto(BookingView bookingView) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(bookingView.getId());
+        bookingDto.setStart(bookingView.getStart());
+        bookingDto.setEnd(bookingView.getEnd());
+        ItemDtoShort item = new ItemDtoShort();
+        item.setId(bookingView.getItemId());
+        item.setName(bookingView.getItemName());
+        bookingDto.setItem(item);
+        bookingDto.setBookerId(bookingView.getBookerId());
+        bookingDto.setItemId(bookingView.getItemId());
+        UserDtoShort booker = new UserDtoShort();
+        booker.setId(bookingView.getBookerId());
+        booker.setName(bookingView.getBookerName());
+        bookingDto.setBooker(booker);
+        bookingDto.setStatus(bookingView.getStatus());
+        return bookingDto;
+    }
+
     public static Booking toBooking(BookingDto bookingDto) {
         Booking booking = new Booking();
         booking.setId(bookingDto.getId());
@@ -1,20 +1,30 @@
 package ru.practicum.shareit.booking.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.NextCursorHeader;
+import ru.practicum.shareit.SharerUserId;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.service.BookingService;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
 
+import static ru.practicum.shareit.NdjsonStreamWriter.NDJSON;
+
 @RestController
 @RequestMapping(path = "/bookings")
 @Validated
 public class BookingController {
-
     private BookingService bookingService;
 
     @Autowired
@@ -23,36 +33,86 @@ public class BookingController {
     }
 
     @PostMapping
-    public BookingDto createBooking(@RequestBody BookingDto bookingDto, @RequestHeader("X-Sharer-User-Id") long userId) throws Exception {
+    public BookingDto createBooking(@RequestBody BookingDto bookingDto, @SharerUserId long userId) throws Exception {
         return bookingService.create(bookingDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingDto> createBookings(@RequestBody List<BookingDto> bookingDtos, @SharerUserId long userId) throws Exception {
+        return bookingService.createAll(bookingDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto updateBooking(@PathVariable Long bookingId, BookingDto bookingDto,
-                                    @RequestHeader("X-Sharer-User-Id") long userId,
+                                    @SharerUserId long userId,
                                     @RequestParam(name = "approved", required = false) Boolean approved) throws Exception {
         return bookingService.update(bookingId, bookingDto, userId, approved);
     }
 
+    @PatchMapping("/batch")
+    public BookingDecisionDto decideBookings(@RequestBody List<Long> bookingIds,
+                                             @SharerUserId long userId,
+                                             @RequestParam(name = "approved") boolean approved) throws Exception {
+        return bookingService.decideAll(bookingIds, userId, approved);
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOwnerBookings(@SharerUserId long userId) throws Exception {
+        return bookingService.subscribe(userId);
+    }
+
     @GetMapping("/{bookingId}")
-    public BookingDto getById(@PathVariable Long bookingId, @RequestHeader("X-Sharer-User-Id") long userId) throws Exception {
+    public BookingDto getById(@PathVariable Long bookingId, @SharerUserId long userId,
+                              WebRequest request) throws Exception {
+        String eTag = bookingService.getETag(bookingId, userId);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         return bookingService.getById(bookingId, userId);
     }
 
     @GetMapping
-    public List<BookingDto> getAllBookings(@RequestHeader("X-Sharer-User-Id") long userId,
-                                           @RequestParam(name = "state", required = false, defaultValue = "ALL") String state,
-                                           @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                           @Min(1) @RequestParam(value = "size", defaultValue = "20") Integer size) throws Exception {
-        return bookingService.getAll(userId, state, from, size);
+    public ResponseEntity<List<BookingDto>> getAllBookings(@SharerUserId long userId,
+                                                           @RequestParam(name = "state", required = false, defaultValue = "ALL") String state,
+                                                           @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                                           @Min(1) @RequestParam(value = "size", defaultValue = "20") Integer size,
+                                                           @RequestParam(value = "cursor", required = false) String cursor) throws Exception {
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getAll(userId, state, from, size));
+        }
+        return toResponse(bookingService.getAllAfter(userId, state, cursor, Math.min(size, NextCursorHeader.MAX_PAGE_SIZE)));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getItemsByAll(@RequestHeader("X-Sharer-User-Id") long userId,
-                                          @RequestParam(name = "state", required = false, defaultValue = "ALL") String state,
-                                          @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                          @Min(1) @RequestParam(value  = "size", defaultValue = "20") Integer size) throws Exception {
-        return bookingService.getItemsForUser(userId, state, from, size);
+    public ResponseEntity<List<BookingDto>> getItemsByAll(@SharerUserId long userId,
+                                                          @RequestParam(name = "state", required = false, defaultValue = "ALL") String state,
+                                                          @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                                          @Min(1) @RequestParam(value  = "size", defaultValue = "20") Integer size,
+                                                          @RequestParam(value = "cursor", required = false) String cursor) throws Exception {
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.getItemsForUser(userId, state, from, size));
+        }
+        return toResponse(bookingService.getItemsForUserAfter(userId, state, cursor, Math.min(size, NextCursorHeader.MAX_PAGE_SIZE)));
+    }
+
+    @GetMapping(path = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBookings(@SharerUserId long userId,
+                                                                @RequestParam(name = "state", required = false, defaultValue = "ALL") String state) throws Exception {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(bookingService.exportAll(userId, state));
+    }
+
+    @GetMapping(path = "/owner/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(@SharerUserId long userId,
+                                                                     @RequestParam(name = "state", required = false, defaultValue = "ALL") String state) throws Exception {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(bookingService.exportItemsForUser(userId, state));
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingPageDto page) {
+        return NextCursorHeader.ok(page.getBookings(), page.getNextCursor());
     }
 
 }
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "booking_start")
@@ -29,4 +30,6 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     @Column(name = "booking_status")
     private BookingState  status;
+    @Version
+    private long          version;
 }
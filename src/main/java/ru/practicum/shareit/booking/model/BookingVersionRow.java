@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.model;
+
+public interface BookingVersionRow {
+    Long getVersion();
+
+    Long getItemVersion();
+
+    Long getBookerVersion();
+
+    Long getBookerId();
+
+    Long getOwnerId();
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.model;
+
+public interface ItemBookingCount {
+    Long getItemId();
+
+    Long getTotal();
+}
@@ -1,44 +1,105 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingItemRef;
+import ru.practicum.shareit.booking.model.BookingVersionRow;
+import ru.practicum.shareit.booking.model.ItemBookingCount;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByBookerId(long bookerId);
-
-    Page<Booking> findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(Long bookerId, List<BookingState> states, LocalDateTime before, LocalDateTime after, PageRequest pageRequest);
-
-    Page<Booking> findAllByBookerIdAndEndBeforeAndStatus(Long bookerId, LocalDateTime before, BookingState status, PageRequest pageRequest);
-
-    Page<Booking> findAllByBookerIdAndStatus(Long bookerId, BookingState status, PageRequest pageRequest);
-
-    Page<Booking> findAllByBookerIdAndStatusInAndStartAfter(Long bookerId, List<BookingState> states, LocalDateTime after, PageRequest pageRequest);
-
-    Page<Booking> findAllByBookerId(Long bookerId, PageRequest pageRequest);
-
-    Page<Booking> findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(Long bookerId, List<BookingState> states, LocalDateTime before, LocalDateTime after, PageRequest pageRequest);
-
-    Page<Booking> findAllByItemOwnerIdAndEndBeforeAndStatus(Long bookerId, LocalDateTime before, BookingState status, PageRequest pageRequest);
-
-    Page<Booking> findAllByItemOwnerIdAndStatus(Long bookerId, BookingState status, PageRequest pageRequest);
-
-    Page<Booking> findAllByItemOwnerIdAndStatusInAndStartAfter(Long bookerId, List<BookingState> states, LocalDateTime after, PageRequest pageRequest);
-
-    List<Booking> findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc(List<Long> itemId, BookingState status, LocalDateTime endBefore);
-
-    List<Booking> findAllByItemIdInAndStatusAndStartAfterOrderByStart(List<Long> itemId, BookingState status, LocalDateTime startAfter);
-
-    Page<Booking> findAllByItemOwnerId(Long bookerId, PageRequest pageRequest);
-
-    List<Booking> findAllByItemIdInAndStatusAndEndBeforeOrStartBeforeAndEndAfter(List<Long> itemId, BookingState status, LocalDateTime endBefore, LocalDateTime startBefore, LocalDateTime endAfter);
-
-    List<Booking> findAllByItemIdInAndStatusAndStartAfter(List<Long> itemId, BookingState status, LocalDateTime startAfter);
+    @Query("select b.item.id from Booking b where b.id = :id")
+    Optional<Long> findItemIdById(@Param("id") Long id);
+
+    @Query("select distinct b.item.id from Booking b where b.id in :ids")
+    List<Long> findItemIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByBookerIdAndItemIdAndStatusAndStartBefore(Long bookerId, Long itemId, BookingState status, LocalDateTime startBefore);
+
+    List<Booking> findAllByStatusInAndEndAfter(List<BookingState> states, LocalDateTime endAfter);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) "
+            + "from Booking b join b.item i join b.booker u where u.id = :userId and b.status in :statuses "
+            + "and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore "
+            + "and (b.start < :cursorStart or (b.start = :cursorStart and b.id < :cursorId)) "
+            + "order by b.start desc, b.id desc")
+    List<BookingView> findBookerPageAfter(@Param("userId") Long userId, @Param("statuses") List<BookingState> statuses,
+                                          @Param("startAfter") LocalDateTime startAfter, @Param("startBefore") LocalDateTime startBefore,
+                                          @Param("endAfter") LocalDateTime endAfter, @Param("endBefore") LocalDateTime endBefore,
+                                          @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) "
+            + "from Booking b join b.item i join b.booker u where i.owner.id = :userId and b.status in :statuses "
+            + "and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore "
+            + "and (b.start < :cursorStart or (b.start = :cursorStart and b.id < :cursorId)) "
+            + "order by b.start desc, b.id desc")
+    List<BookingView> findOwnerPageAfter(@Param("userId") Long userId, @Param("statuses") List<BookingState> statuses,
+                                         @Param("startAfter") LocalDateTime startAfter, @Param("startBefore") LocalDateTime startBefore,
+                                         @Param("endAfter") LocalDateTime endAfter, @Param("endBefore") LocalDateTime endBefore,
+                                         @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                         Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) "
+            + "from Booking b join b.item i join b.booker u where u.id = :userId and b.status in :statuses "
+            + "and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore "
+            + "order by b.start desc, b.id desc")
+    Stream<BookingView> streamBookerHistory(@Param("userId") Long userId, @Param("statuses") List<BookingState> statuses,
+                                            @Param("startAfter") LocalDateTime startAfter, @Param("startBefore") LocalDateTime startBefore,
+                                            @Param("endAfter") LocalDateTime endAfter, @Param("endBefore") LocalDateTime endBefore);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) "
+            + "from Booking b join b.item i join b.booker u where i.owner.id = :userId and b.status in :statuses "
+            + "and b.start > :startAfter and b.start < :startBefore and b.end > :endAfter and b.end < :endBefore "
+            + "order by b.start desc, b.id desc")
+    Stream<BookingView> streamOwnerHistory(@Param("userId") Long userId, @Param("statuses") List<BookingState> statuses,
+                                           @Param("startAfter") LocalDateTime startAfter, @Param("startBefore") LocalDateTime startBefore,
+                                           @Param("endAfter") LocalDateTime endAfter, @Param("endBefore") LocalDateTime endBefore);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id as id, b.item.id as itemId, b.booker.id as bookerId, b.start as start, b.end as end from Booking b "
+            + "where b.id in :ids and b.status = :status and b.item.owner.id = :ownerId")
+    List<BookingItemRef> findOwnedByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId,
+                                                  @Param("status") BookingState status);
+
+    @Query("select b.id as id, b.item.id as itemId, b.booker.id as bookerId, b.start as start, b.end as end from Booking b "
+            + "where b.item.id in :itemIds and b.status = :status and (b.start >= :now or b.start = "
+            + "(select max(p.start) from Booking p where p.item.id = b.item.id and p.status = :status and p.start < :now))")
+    List<BookingItemRef> findTimelineByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("status") BookingState status,
+                                                @Param("now") LocalDateTime now);
+
+    @Query("select b.version as version, i.version as itemVersion, u.version as bookerVersion, u.id as bookerId, i.owner.id as ownerId "
+            + "from Booking b join b.item i join b.booker u where b.id = :id")
+    Optional<BookingVersionRow> findVersionById(@Param("id") Long id);
+
+    @Query("select b.item.id as itemId, count(b) as total from Booking b group by b.item.id")
+    List<ItemBookingCount> countBookingsByItem();
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update Booking b set b.status = :newStatus, b.version = b.version + 1 where b.id in :ids and b.status = :status "
+            + "and b.item.id in (select i.id from Item i where i.owner.id = :ownerId)")
+    int updateOwnedStatus(@Param("ids") Collection<Long> ids, @Param("ownerId") Long ownerId,
+                          @Param("status") BookingState status, @Param("newStatus") BookingState newStatus);
 }
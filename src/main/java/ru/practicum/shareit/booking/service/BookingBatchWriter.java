@@ -0,0 +1,160 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingItemRef;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.exception.ItemNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemNameSuggester;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class BookingBatchWriter {
+    private ItemRepository itemRepository;
+    private BookingRepository bookingRepository;
+    private BookingIntervalIndex bookingIntervalIndex;
+    private CommentEligibility commentEligibility;
+    private BookingEventHub bookingEventHub;
+    private BookingTimelineCache bookingTimelineCache;
+    private ItemNameSuggester itemNameSuggester;
+
+    @Autowired
+    public BookingBatchWriter(ItemRepository itemRepository, BookingRepository bookingRepository, BookingIntervalIndex bookingIntervalIndex,
+                              CommentEligibility commentEligibility, BookingEventHub bookingEventHub,
+                              BookingTimelineCache bookingTimelineCache, ItemNameSuggester itemNameSuggester) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.commentEligibility = commentEligibility;
+        this.bookingEventHub = bookingEventHub;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.itemNameSuggester = itemNameSuggester;
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public List<BookingDto> createAll(List<BookingDto> bookingDtos, Set<Long> itemIds, User booker) throws Exception {
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Booking> bookings = new ArrayList<>();
+        for (BookingDto bookingDto : bookingDtos) {
+            Item item = items.get(bookingDto.getItemId());
+            if (item == null || item.getOwner().getId().equals(booker.getId())) {
+                throw new ItemNotFoundException("Item not found");
+            }
+            if (!item.isAvailable()) {
+                throw new ItemNotAvailableException("Item not available");
+            }
+            Booking booking = BookingMapper.toBooking(bookingDto);
+            booking.setStatus(BookingState.WAITING);
+            booking.setBooker(booker);
+            booking.setItem(item);
+            bookings.add(booking);
+        }
+        List<Long> reservationIds = new ArrayList<>();
+        List<Booking> savedBookings;
+        try {
+            for (Booking booking : bookings) {
+                reservationIds.add(bookingIntervalIndex.reserve(booking.getItem().getId(), booking.getStart(), booking.getEnd()));
+            }
+            savedBookings = bookingRepository.saveAllAndFlush(bookings);
+        } catch (Exception e) {
+            releaseReservations(bookings, reservationIds);
+            throw e;
+        }
+        afterCompletion(() -> {
+            for (int i = 0; i < savedBookings.size(); i++) {
+                bookingIntervalIndex.confirm(bookings.get(i).getItem().getId(), reservationIds.get(i), savedBookings.get(i).getId());
+                itemNameSuggester.recordBooking(bookings.get(i).getItem().getId());
+            }
+        }, () -> releaseReservations(bookings, reservationIds));
+        List<BookingDto> createdBookings = new ArrayList<>();
+        for (Booking savedBooking : savedBookings) {
+            BookingDto createdBooking = BookingMapper.toBookingDto(savedBooking);
+            bookingEventHub.publish(savedBooking.getItem().getOwner().getId(), BookingEventHub.BOOKING_CREATED, createdBooking);
+            createdBookings.add(createdBooking);
+        }
+        return createdBookings;
+    }
+
+    private void releaseReservations(List<Booking> bookings, List<Long> reservationIds) {
+        for (int i = 0; i < reservationIds.size(); i++) {
+            bookingIntervalIndex.release(bookings.get(i).getItem().getId(), reservationIds.get(i));
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public BookingDecisionDto decideAll(Set<Long> ids, long userId, boolean approved) {
+        BookingState newStatus = approved ? BookingState.APPROVED : BookingState.REJECTED;
+        List<BookingItemRef> candidates = bookingRepository.findOwnedByIdInAndStatus(ids, userId, BookingState.WAITING);
+        Set<Long> updated = candidates.stream().map(BookingItemRef::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!candidates.isEmpty()) {
+            bookingRepository.updateOwnedStatus(updated, userId, BookingState.WAITING, newStatus);
+            afterCommit(() -> candidates.forEach(candidate -> {
+                if (approved) {
+                    commentEligibility.recordApproval(candidate.getBookerId(), candidate.getItemId(), candidate.getStart());
+                    bookingTimelineCache.approved(candidate.getItemId(), candidate.getId(), candidate.getBookerId(), candidate.getStart(), candidate.getEnd());
+                } else {
+                    bookingIntervalIndex.release(candidate.getItemId(), candidate.getId());
+                }
+            }));
+        }
+        for (BookingItemRef candidate : candidates) {
+            BookingDto updatedBooking = new BookingDto();
+            updatedBooking.setId(candidate.getId());
+            updatedBooking.setItemId(candidate.getItemId());
+            updatedBooking.setBookerId(candidate.getBookerId());
+            updatedBooking.setStart(candidate.getStart());
+            updatedBooking.setEnd(candidate.getEnd());
+            updatedBooking.setStatus(newStatus);
+            bookingEventHub.publish(userId, BookingEventHub.BOOKING_UPDATED, updatedBooking);
+        }
+        BookingDecisionDto decision = new BookingDecisionDto();
+        decision.setUpdated(new ArrayList<>(updated));
+        decision.setSkipped(ids.stream().filter(id -> !updated.contains(id)).collect(Collectors.toList()));
+        return decision;
+    }
+
+    private void afterCommit(Runnable action) {
+        afterCompletion(action, () -> {
+        });
+    }
+
+    private void afterCompletion(Runnable committed, Runnable rolledBack) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        rolledBack.run();
+                    }
+                }
+            });
+        } else {
+            committed.run();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class BookingEventHub {
+    public static final String BOOKING_CREATED = "booking-created";
+    public static final String BOOKING_UPDATED = "booking-updated";
+    static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private final Map<Long, Set<Client>> clientsByOwner = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final int queueCapacity;
+    private ScheduledExecutorService heartbeats;
+    private long heartbeatMillis;
+
+    @Autowired
+    public BookingEventHub(@Value("${shareit.booking.events.senders:4}") int senders,
+                           @Value("${shareit.booking.events.queue-capacity:64}") int queueCapacity,
+                           @Value("${shareit.booking.events.heartbeat:PT15S}") Duration heartbeat) {
+        this(Executors.newFixedThreadPool(Math.max(1, senders), daemon("booking-event-sender")), queueCapacity);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("booking-event-heartbeat"));
+        this.heartbeatMillis = heartbeat.toMillis();
+    }
+
+    BookingEventHub(ExecutorService senders, int queueCapacity) {
+        this.senders = senders;
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    @PostConstruct
+    public void startHeartbeat() {
+        if (heartbeats != null && heartbeatMillis > 0) {
+            heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public SseEmitter subscribe(long ownerId) {
+        return register(ownerId, new SseEmitter(STREAM_TIMEOUT_MILLIS));
+    }
+
+    SseEmitter register(long ownerId, SseEmitter emitter) {
+        Client client = new Client(ownerId, emitter);
+        clientsByOwner.computeIfAbsent(ownerId, id -> new CopyOnWriteArraySet<>()).add(client);
+        emitter.onCompletion(() -> remove(client));
+        emitter.onTimeout(() -> remove(client));
+        emitter.onError(error -> remove(client));
+        return emitter;
+    }
+
+    public void publish(long ownerId, String event, BookingDto booking) {
+        if (!clientsByOwner.containsKey(ownerId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(ownerId, event, booking);
+                }
+            });
+        } else {
+            dispatch(ownerId, event, booking);
+        }
+    }
+
+    void heartbeat() {
+        clientsByOwner.values().forEach(clients -> clients.forEach(client -> client.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    private void dispatch(long ownerId, String event, BookingDto booking) {
+        Set<Client> clients = clientsByOwner.get(ownerId);
+        if (clients == null) {
+            return;
+        }
+        Supplier<SseEmitter.SseEventBuilder> message = () -> SseEmitter.event()
+                .name(event)
+                .id(String.valueOf(booking.getId()))
+                .data(booking, MediaType.APPLICATION_JSON);
+        clients.forEach(client -> client.offer(message.get()));
+    }
+
+    private void remove(Client client) {
+        clientsByOwner.computeIfPresent(client.ownerId, (id, clients) -> {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+        senders.shutdownNow();
+        clientsByOwner.values().forEach(clients -> clients.forEach(client -> client.emitter.complete()));
+        clientsByOwner.clear();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Client {
+        private final long ownerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> events = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Client(long ownerId, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!events.offer(event)) {
+                log.warn("Booking stream of owner {} is too slow, closing it", ownerId);
+                closed = true;
+                events.clear();
+                remove(this);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = events.poll()) != null) {
+                    emitter.send(event);
+                }
+                if (closed) {
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping booking stream of owner {}: {}", ownerId, e.getMessage());
+                closed = true;
+                events.clear();
+                remove(this);
+                return;
+            }
+            draining.set(false);
+            if (!events.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class BookingIntervalIndex {
+    static final List<BookingState> BLOCKING_STATES = List.of(BookingState.APPROVED, BookingState.WAITING);
+
+    private final Map<Long, ItemIntervals> intervalsByItem = new ConcurrentHashMap<>();
+    private final AtomicLong reservationSequence = new AtomicLong();
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        bookingRepository.findAllByStatusInAndEndAfter(BLOCKING_STATES, LocalDateTime.now())
+                .forEach(booking -> intervals(booking.getItem().getId())
+                        .add(booking.getId(), toMillis(booking.getStart()), toMillis(booking.getEnd())));
+    }
+
+    public long reserve(long itemId, LocalDateTime start, LocalDateTime end) throws ItemNotAvailableException {
+        long reservationId = -reservationSequence.incrementAndGet();
+        place(itemId, reservationId, start, end);
+        return reservationId;
+    }
+
+    public void confirm(long itemId, long reservationId, long bookingId) {
+        intervals(itemId).rename(reservationId, bookingId);
+    }
+
+    public void place(long itemId, long bookingId, LocalDateTime start, LocalDateTime end) throws ItemNotAvailableException {
+        long now = toMillis(LocalDateTime.now());
+        if (!intervals(itemId).place(bookingId, toMillis(start), toMillis(end), now)) {
+            throw new ItemNotAvailableException("Item is already booked for these dates");
+        }
+    }
+
+    public void restore(long itemId, long bookingId, LocalDateTime start, LocalDateTime end) {
+        intervals(itemId).replace(bookingId, toMillis(start), toMillis(end));
+    }
+
+    public void release(long itemId, long bookingId) {
+        ItemIntervals intervals = intervalsByItem.get(itemId);
+        if (intervals != null) {
+            intervals.remove(bookingId);
+        }
+    }
+
+    public void removeItem(long itemId) {
+        intervalsByItem.remove(itemId);
+    }
+
+    public boolean tracks(long itemId) {
+        return intervalsByItem.containsKey(itemId);
+    }
+
+    public List<TimeSlotDto> busy(long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemIntervals intervals = intervalsByItem.get(itemId);
+        List<TimeSlotDto> slots = new ArrayList<>();
+        if (intervals != null) {
+            for (long[] slot : intervals.busy(toMillis(from), toMillis(to))) {
+                slots.add(new TimeSlotDto(toDateTime(slot[0]), toDateTime(slot[1])));
+            }
+        }
+        return slots;
+    }
+
+    public LocalDateTime nextFree(long itemId, LocalDateTime from, Duration length) {
+        ItemIntervals intervals = intervalsByItem.get(itemId);
+        if (intervals == null) {
+            return from;
+        }
+        return toDateTime(intervals.nextFree(toMillis(from), length.toMillis()));
+    }
+
+    private ItemIntervals intervals(long itemId) {
+        return intervalsByItem.computeIfAbsent(itemId, id -> new ItemIntervals());
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static class ItemIntervals {
+        private long[] ids = new long[4];
+        private long[] starts = new long[4];
+        private long[] ends = new long[4];
+        private long[] maxEnds = new long[4];
+        private int size;
+
+        synchronized boolean place(long id, long start, long end, long now) {
+            int index = indexOf(id);
+            long oldStart = 0;
+            long oldEnd = 0;
+            if (index >= 0) {
+                oldStart = starts[index];
+                oldEnd = ends[index];
+                removeAt(index);
+            }
+            if (overlaps(start, end)) {
+                if (index >= 0) {
+                    insert(id, oldStart, oldEnd);
+                }
+                return false;
+            }
+            dropEndedBefore(now);
+            insert(id, start, end);
+            return true;
+        }
+
+        synchronized void add(long id, long start, long end) {
+            insert(id, start, end);
+        }
+
+        synchronized void replace(long id, long start, long end) {
+            remove(id);
+            insert(id, start, end);
+        }
+
+        synchronized void rename(long oldId, long newId) {
+            int index = indexOf(oldId);
+            if (index >= 0) {
+                ids[index] = newId;
+            }
+        }
+
+        synchronized void remove(long id) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                removeAt(index);
+            }
+        }
+
+        synchronized boolean overlaps(long start, long end) {
+            int startedBeforeEnd = firstStartNotBefore(end);
+            return startedBeforeEnd > 0 && maxEnds[startedBeforeEnd - 1] > start;
+        }
+
+        synchronized List<long[]> busy(long from, long to) {
+            List<long[]> slots = new ArrayList<>();
+            int startedBeforeTo = firstStartNotBefore(to);
+            for (int i = 0; i < startedBeforeTo; i++) {
+                if (ends[i] <= from) {
+                    continue;
+                }
+                long start = Math.max(starts[i], from);
+                long end = Math.min(ends[i], to);
+                long[] last = slots.isEmpty() ? null : slots.get(slots.size() - 1);
+                if (last != null && start <= last[1]) {
+                    last[1] = Math.max(last[1], end);
+                } else {
+                    slots.add(new long[]{start, end});
+                }
+            }
+            return slots;
+        }
+
+        synchronized long nextFree(long from, long length) {
+            long candidate = from;
+            for (int i = 0; i < size; i++) {
+                if (ends[i] <= candidate) {
+                    continue;
+                }
+                if (starts[i] - candidate >= length) {
+                    return candidate;
+                }
+                candidate = ends[i];
+            }
+            return candidate;
+        }
+
+        private int firstStartNotBefore(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long id, long start, long end) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                maxEnds = Arrays.copyOf(maxEnds, capacity);
+            }
+            int index = firstStartNotBefore(start);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ends, index, ends, index + 1, size - index);
+            ids[index] = id;
+            starts[index] = start;
+            ends[index] = end;
+            size++;
+            recomputeMaxEnds(index);
+        }
+
+        private void removeAt(int index) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+            System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+            size--;
+            recomputeMaxEnds(index);
+        }
+
+        private void dropEndedBefore(long now) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (ends[i] > now) {
+                    ids[kept] = ids[i];
+                    starts[kept] = starts[i];
+                    ends[kept] = ends[i];
+                    kept++;
+                }
+            }
+            if (kept != size) {
+                size = kept;
+                recomputeMaxEnds(0);
+            }
+        }
+
+        private void recomputeMaxEnds(int from) {
+            for (int i = from; i < size; i++) {
+                maxEnds[i] = i == 0 ? ends[i] : Math.max(maxEnds[i - 1], ends[i]);
+            }
+        }
+    }
+}
@@ -1,18 +1,38 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 
 import java.util.List;
 
 public interface BookingService {
     BookingDto create(BookingDto bookingDto, long userId) throws Exception;
 
+    List<BookingDto> createAll(List<BookingDto> bookingDtos, long userId) throws Exception;
+
     BookingDto update(long bookingId, BookingDto bookingDto, long userId, Boolean approved) throws Exception;
 
+    BookingDecisionDto decideAll(List<Long> bookingIds, long userId, boolean approved) throws Exception;
+
+    SseEmitter subscribe(long userId) throws Exception;
+
     BookingDto getById(long id, long userId) throws Exception;
 
+    String getETag(long id, long userId);
+
     List<BookingDto> getAll(long userId, String status, Integer from, Integer size) throws Exception;
 
     List<BookingDto> getItemsForUser(long userId, String status, Integer from, Integer size) throws Exception;
 
+    BookingPageDto getAllAfter(long userId, String status, String cursor, Integer size) throws Exception;
+
+    BookingPageDto getItemsForUserAfter(long userId, String status, String cursor, Integer size) throws Exception;
+
+    StreamingResponseBody exportAll(long userId, String status) throws Exception;
+
+    StreamingResponseBody exportItemsForUser(long userId, String status) throws Exception;
+
 }
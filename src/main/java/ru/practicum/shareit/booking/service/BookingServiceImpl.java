@@ -2,43 +2,76 @@ package ru.practicum.shareit.booking.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.NdjsonStreamWriter;
+import ru.practicum.shareit.TimeIdCursor;
+import ru.practicum.shareit.WeakETag;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemNameSuggester;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityCache;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class BookingServiceImpl implements BookingService {
-    private UserRepository userRepository;
+    private UserIdentityCache userIdentityCache;
     private ItemRepository itemRepository;
     private BookingRepository bookingRepository;
+    private BookingIntervalIndex bookingIntervalIndex;
+    private CommentEligibility commentEligibility;
+    private BookingEventHub bookingEventHub;
+    private ItemWriteLanes itemWriteLanes;
+    private BookingTimelineCache bookingTimelineCache;
+    private ItemNameSuggester itemNameSuggester;
+    private NdjsonStreamWriter ndjsonStreamWriter;
+    private BookingBatchWriter bookingBatchWriter;
 
     @Autowired
-    public BookingServiceImpl(UserRepository userRepository, ItemRepository itemRepository, BookingRepository bookingRepository) {
-        this.userRepository = userRepository;
+    public BookingServiceImpl(UserIdentityCache userIdentityCache, ItemRepository itemRepository, BookingRepository bookingRepository,
+                              BookingIntervalIndex bookingIntervalIndex, CommentEligibility commentEligibility, BookingEventHub bookingEventHub,
+                              ItemWriteLanes itemWriteLanes, BookingTimelineCache bookingTimelineCache, ItemNameSuggester itemNameSuggester,
+                              NdjsonStreamWriter ndjsonStreamWriter, BookingBatchWriter bookingBatchWriter) {
+        this.userIdentityCache = userIdentityCache;
         this.itemRepository = itemRepository;
         this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.commentEligibility = commentEligibility;
+        this.bookingEventHub = bookingEventHub;
+        this.itemWriteLanes = itemWriteLanes;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.itemNameSuggester = itemNameSuggester;
+        this.ndjsonStreamWriter = ndjsonStreamWriter;
+        this.bookingBatchWriter = bookingBatchWriter;
     }
 
     @Override
     public BookingDto create(BookingDto bookingDto, long userId) throws Exception {
         checkBookingDates(bookingDto);
+        if (bookingDto.getItemId() == null) {
+            return createOnLane(bookingDto, userId);
+        }
+        return itemWriteLanes.run(bookingDto.getItemId(), () -> createOnLane(bookingDto, userId));
+    }
+
+    private BookingDto createOnLane(BookingDto bookingDto, long userId) throws Exception {
         Booking booking = BookingMapper.toBooking(bookingDto);
         booking.setStatus(BookingState.WAITING);
-        User booker = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User booker = userIdentityCache.require(userId);
         Item item = itemRepository.findById(bookingDto.getItemId()).orElseThrow(() -> new ItemNotFoundException("Item not found"));
         if (item.getOwner().getId().equals(booker.getId())) {
             throw new ItemNotFoundException("Item not found");
@@ -48,13 +81,48 @@ public class BookingServiceImpl implements BookingService {
         }
         booking.setBooker(booker);
         booking.setItem(item);
-        Booking savedBooking = bookingRepository.save(booking);
-        return BookingMapper.toBookingDto(savedBooking);
+        long reservationId = bookingIntervalIndex.reserve(item.getId(), booking.getStart(), booking.getEnd());
+        Booking savedBooking;
+        try {
+            savedBooking = bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            bookingIntervalIndex.release(item.getId(), reservationId);
+            throw e;
+        }
+        bookingIntervalIndex.confirm(item.getId(), reservationId, savedBooking.getId());
+        itemNameSuggester.recordBooking(item.getId());
+        BookingDto createdBooking = BookingMapper.toBookingDto(savedBooking);
+        bookingEventHub.publish(item.getOwner().getId(), BookingEventHub.BOOKING_CREATED, createdBooking);
+        return createdBooking;
+    }
+
+    @Override
+    public List<BookingDto> createAll(List<BookingDto> bookingDtos, long userId) throws Exception {
+        if (bookingDtos == null || bookingDtos.isEmpty()) {
+            throw new ValidationException("Bookings are empty");
+        }
+        for (BookingDto bookingDto : bookingDtos) {
+            checkBookingDates(bookingDto);
+            if (bookingDto.getItemId() == null) {
+                throw new ValidationException("Item id is null");
+            }
+        }
+        User booker = userIdentityCache.require(userId);
+        Set<Long> itemIds = bookingDtos.stream().map(BookingDto::getItemId).collect(Collectors.toSet());
+        return itemWriteLanes.runAll(itemIds, () -> bookingBatchWriter.createAll(bookingDtos, itemIds, booker));
     }
 
     @Override
     public BookingDto update(long bookingId, BookingDto bookingDto, long userId, Boolean approved) throws Exception {
-        User booker = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        Optional<Long> itemId = bookingRepository.findItemIdById(bookingId);
+        if (itemId.isEmpty()) {
+            return updateOnLane(bookingId, bookingDto, userId, approved);
+        }
+        return itemWriteLanes.run(itemId.get(), () -> updateOnLane(bookingId, bookingDto, userId, approved));
+    }
+
+    private BookingDto updateOnLane(long bookingId, BookingDto bookingDto, long userId, Boolean approved) throws Exception {
+        User booker = userIdentityCache.require(userId);
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> new BookingNotFoundException("Booking not found"));
         Item item = itemRepository.findById(booking.getItem().getId()).orElseThrow(() -> new ItemNotFoundException("Item not found"));
         if (approved == null && bookingDto.getStart() == null && bookingDto.getEnd() == null) {
@@ -67,94 +135,184 @@ public class BookingServiceImpl implements BookingService {
             if (booking.getStatus().equals(BookingState.APPROVED)) {
                 throw new ValidationException("Status is approved.");
             }
+            BookingState oldStatus = booking.getStatus();
+            if (approved) {
+                bookingIntervalIndex.place(item.getId(), booking.getId(), booking.getStart(), booking.getEnd());
+            } else {
+                bookingIntervalIndex.release(item.getId(), booking.getId());
+            }
             booking.setStatus(approved ? BookingState.APPROVED : BookingState.REJECTED);
-            return BookingMapper.toBookingDto(bookingRepository.save(booking));
+            Booking savedBooking = saveOrRestore(booking, oldStatus, booking.getStart(), booking.getEnd());
+            if (approved) {
+                commentEligibility.recordApproval(booking.getBooker().getId(), item.getId(), booking.getStart());
+                bookingTimelineCache.approved(item.getId(), booking.getId(), booking.getBooker().getId(), booking.getStart(), booking.getEnd());
+            }
+            BookingDto updatedBooking = BookingMapper.toBookingDto(savedBooking);
+            bookingEventHub.publish(item.getOwner().getId(), BookingEventHub.BOOKING_UPDATED, updatedBooking);
+            return updatedBooking;
         }
         if (!Objects.equals(booking.getBooker().getId(), booker.getId())) {
             throw new UnauthorizedException("Unauthorized");
         }
+        BookingState oldStatus = booking.getStatus();
+        LocalDateTime oldStart = booking.getStart();
+        LocalDateTime oldEnd = booking.getEnd();
         if (bookingDto.getStart() != null) {
             booking.setStart(bookingDto.getStart());
         }
         if (bookingDto.getEnd() != null) {
             booking.setEnd(bookingDto.getEnd());
         }
+        bookingIntervalIndex.place(item.getId(), booking.getId(), booking.getStart(), booking.getEnd());
         booking.setStatus(BookingState.WAITING);
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        BookingDto updatedBooking = BookingMapper.toBookingDto(saveOrRestore(booking, oldStatus, oldStart, oldEnd));
+        if (oldStatus == BookingState.APPROVED) {
+            commentEligibility.forget(booker.getId(), item.getId());
+            bookingTimelineCache.removed(item.getId());
+        }
+        bookingEventHub.publish(item.getOwner().getId(), BookingEventHub.BOOKING_UPDATED, updatedBooking);
+        return updatedBooking;
+    }
+
+    private Booking saveOrRestore(Booking booking, BookingState oldStatus, LocalDateTime oldStart, LocalDateTime oldEnd) {
+        try {
+            return bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            long itemId = booking.getItem().getId();
+            if (BookingIntervalIndex.BLOCKING_STATES.contains(oldStatus)) {
+                bookingIntervalIndex.restore(itemId, booking.getId(), oldStart, oldEnd);
+            } else {
+                bookingIntervalIndex.release(itemId, booking.getId());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public BookingDecisionDto decideAll(List<Long> bookingIds, long userId, boolean approved) throws Exception {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            throw new ValidationException("Booking ids are empty");
+        }
+        userIdentityCache.require(userId);
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        List<Long> itemIds = bookingRepository.findItemIdsByIdIn(ids);
+        return itemWriteLanes.runAll(itemIds, () -> bookingBatchWriter.decideAll(ids, userId, approved));
+    }
+
+    @Override
+    public SseEmitter subscribe(long userId) throws Exception {
+        userIdentityCache.require(userId);
+        return bookingEventHub.subscribe(userId);
     }
 
     @Override
     public BookingDto getById(long id, long userId) throws Exception {
-        User booker = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User booker = userIdentityCache.require(userId);
         Booking booking = bookingRepository.findById(id).orElseThrow(() -> new BookingNotFoundException("Booking not found"));
-        if (booking.getItem().getOwner().equals(booker) || booking.getBooker().equals(booker)) {
+        if (Objects.equals(booking.getItem().getOwner().getId(), booker.getId())
+                || Objects.equals(booking.getBooker().getId(), booker.getId())) {
             return BookingMapper.toBookingDto(booking);
         }
         throw new BookingNotFoundException("Not found for booker");
     }
 
+    @Override
+    public String getETag(long id, long userId) {
+        return bookingRepository.findVersionById(id)
+                .filter(row -> row.getBookerId().equals(userId) || row.getOwnerId().equals(userId))
+                .map(row -> WeakETag.of(id, row.getVersion(), row.getItemVersion(), row.getBookerVersion()))
+                .orElse(null);
+    }
+
     @Override
     public List<BookingDto> getAll(long userId, String status, Integer from, Integer size) throws Exception {
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
-        List<Booking> bookings = getBookingsByStatusForBooker(status, userId, PageRequest.of(from / size, size, Sort.by("start").descending()));
+        userIdentityCache.require(userId);
+        BookingStateFilter filter = BookingStateFilter.of(status, LocalDateTime.now());
+        TimeIdCursor first = TimeIdCursor.first();
+        List<BookingView> bookings = bookingRepository.findBookerPageAfter(userId, filter.getStatuses(),
+                filter.getStartAfter(), filter.getStartBefore(), filter.getEndAfter(), filter.getEndBefore(),
+                first.getTime(), first.getId(), PageRequest.of(from / size, size));
 
         return bookings.stream()
                 .map(BookingMapper::toBookingDto)
                 .collect(Collectors.toList());
     }
 
-    private List<Booking> getBookingsByStatusForBooker(String status, Long userId, PageRequest pageRequest) throws ValidationException {
-        LocalDateTime now = LocalDateTime.now();
-        switch (status) {
-            case "CURRENT":
-                return bookingRepository.findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(userId, List.of(BookingState.APPROVED, BookingState.WAITING, BookingState.REJECTED), now, now, pageRequest).getContent();
-            case "PAST":
-                return bookingRepository.findAllByBookerIdAndEndBeforeAndStatus(userId, now, BookingState.APPROVED, pageRequest).getContent();
-            case "WAITING":
-                return bookingRepository.findAllByBookerIdAndStatus(userId, BookingState.WAITING, pageRequest).getContent();
-            case "REJECTED":
-                return bookingRepository.findAllByBookerIdAndStatus(userId, BookingState.REJECTED, pageRequest).getContent();
-            case "FUTURE":
-                return bookingRepository.findAllByBookerIdAndStatusInAndStartAfter(userId, List.of(BookingState.APPROVED, BookingState.WAITING), now, pageRequest).getContent();
-            case "ALL":
-                return bookingRepository.findAllByBookerId(userId, pageRequest).getContent();
-            default:
-                throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
-        }
-    }
-
-    private List<Booking> getBookingsByStatusForOwner(String status, Long userId, PageRequest pageRequest) throws ValidationException {
-        LocalDateTime now = LocalDateTime.now();
-        switch (status) {
-            case "CURRENT":
-                return bookingRepository.findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(userId, List.of(BookingState.APPROVED, BookingState.WAITING, BookingState.REJECTED), now, now, pageRequest).getContent();
-            case "PAST":
-                return bookingRepository.findAllByItemOwnerIdAndEndBeforeAndStatus(userId, now, BookingState.APPROVED, pageRequest).getContent();
-            case "WAITING":
-                return bookingRepository.findAllByItemOwnerIdAndStatus(userId, BookingState.WAITING, pageRequest).getContent();
-            case "REJECTED":
-                return bookingRepository.findAllByItemOwnerIdAndStatus(userId, BookingState.REJECTED, pageRequest).getContent();
-            case "FUTURE":
-                return bookingRepository.findAllByItemOwnerIdAndStatusInAndStartAfter(userId, List.of(BookingState.APPROVED, BookingState.WAITING), now, pageRequest).getContent();
-            case "ALL":
-                return bookingRepository.findAllByItemOwnerId(userId, pageRequest).getContent();
-            default:
-                throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
-        }
-    }
-
     @Override
     public List<BookingDto> getItemsForUser(long userId, String status, Integer from, Integer size) throws Exception {
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
-        if (itemRepository.findAll().stream().noneMatch(item -> item.getOwner().getId().equals(userId))) {
-            throw new UnauthorizedException("Unauthorized");
-        }
-        List<Booking> bookings = getBookingsByStatusForOwner(status, userId, PageRequest.of(from / size, size, Sort.by("start").descending()));
+        userIdentityCache.require(userId);
+        checkOwnsItems(userId);
+        BookingStateFilter filter = BookingStateFilter.of(status, LocalDateTime.now());
+        TimeIdCursor first = TimeIdCursor.first();
+        List<BookingView> bookings = bookingRepository.findOwnerPageAfter(userId, filter.getStatuses(),
+                filter.getStartAfter(), filter.getStartBefore(), filter.getEndAfter(), filter.getEndBefore(),
+                first.getTime(), first.getId(), PageRequest.of(from / size, size));
 
         return bookings.stream()
                 .map(BookingMapper::toBookingDto)
                 .collect(Collectors.toList());
+    }
+
+    @Override
+    public BookingPageDto getAllAfter(long userId, String status, String cursor, Integer size) throws Exception {
+        userIdentityCache.require(userId);
+        BookingStateFilter filter = BookingStateFilter.of(status, LocalDateTime.now());
+        TimeIdCursor after = TimeIdCursor.decode(cursor);
+        List<BookingView> bookings = bookingRepository.findBookerPageAfter(userId, filter.getStatuses(),
+                filter.getStartAfter(), filter.getStartBefore(), filter.getEndAfter(), filter.getEndBefore(),
+                after.getTime(), after.getId(), PageRequest.of(0, size + 1));
+        return toPage(bookings, size);
+    }
+
+    @Override
+    public BookingPageDto getItemsForUserAfter(long userId, String status, String cursor, Integer size) throws Exception {
+        userIdentityCache.require(userId);
+        checkOwnsItems(userId);
+        BookingStateFilter filter = BookingStateFilter.of(status, LocalDateTime.now());
+        TimeIdCursor after = TimeIdCursor.decode(cursor);
+        List<BookingView> bookings = bookingRepository.findOwnerPageAfter(userId, filter.getStatuses(),
+                filter.getStartAfter(), filter.getStartBefore(), filter.getEndAfter(), filter.getEndBefore(),
+                after.getTime(), after.getId(), PageRequest.of(0, size + 1));
+        return toPage(bookings, size);
+    }
+
+    @Override
+    public StreamingResponseBody exportAll(long userId, String status) throws Exception {
+        userIdentityCache.require(userId);
+        BookingStateFilter filter = BookingStateFilter.of(status, LocalDateTime.now());
+        return out -> ndjsonStreamWriter.write(() -> bookingRepository.streamBookerHistory(userId, filter.getStatuses(),
+                filter.getStartAfter(), filter.getStartBefore(), filter.getEndAfter(), filter.getEndBefore()),
+                BookingMapper::toBookingDto, out);
+    }
+
+    @Override
+    public StreamingResponseBody exportItemsForUser(long userId, String status) throws Exception {
+        userIdentityCache.require(userId);
+        checkOwnsItems(userId);
+        BookingStateFilter filter = BookingStateFilter.of(status, LocalDateTime.now());
+        return out -> ndjsonStreamWriter.write(() -> bookingRepository.streamOwnerHistory(userId, filter.getStatuses(),
+                filter.getStartAfter(), filter.getStartBefore(), filter.getEndAfter(), filter.getEndBefore()),
+                BookingMapper::toBookingDto, out);
+    }
 
+    private BookingPageDto toPage(List<BookingView> bookings, int size) {
+        boolean hasNext = bookings.size() > size;
+        List<BookingView> content = hasNext ? bookings.subList(0, size) : bookings;
+        BookingPageDto page = new BookingPageDto();
+        page.setBookings(content.stream()
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList()));
+        if (hasNext) {
+            BookingView last = content.get(content.size() - 1);
+            page.setNextCursor(TimeIdCursor.encode(last.getStart(), last.getId()));
+        }
+        return page;
+    }
+
+    private void checkOwnsItems(long userId) throws UnauthorizedException {
+        if (!itemRepository.existsByOwnerId(userId)) {
+            throw new UnauthorizedException("Unauthorized");
+        }
     }
 
     private void checkBookingDates(BookingDto bookingDto) throws ValidationException {
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+class BookingStateFilter {
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final List<BookingState> statuses;
+    private final LocalDateTime startAfter;
+    private final LocalDateTime startBefore;
+    private final LocalDateTime endAfter;
+    private final LocalDateTime endBefore;
+
+    static BookingStateFilter of(String status, LocalDateTime now) throws ValidationException {
+        switch (status) {
+            case "CURRENT":
+                return new BookingStateFilter(List.of(BookingState.APPROVED, BookingState.WAITING, BookingState.REJECTED), EARLIEST, now, now, LATEST);
+            case "PAST":
+                return new BookingStateFilter(List.of(BookingState.APPROVED), EARLIEST, LATEST, EARLIEST, now);
+            case "WAITING":
+                return new BookingStateFilter(List.of(BookingState.WAITING), EARLIEST, LATEST, EARLIEST, LATEST);
+            case "REJECTED":
+                return new BookingStateFilter(List.of(BookingState.REJECTED), EARLIEST, LATEST, EARLIEST, LATEST);
+            case "FUTURE":
+                return new BookingStateFilter(List.of(BookingState.APPROVED, BookingState.WAITING), now, LATEST, EARLIEST, LATEST);
+            case "ALL":
+                return new BookingStateFilter(List.of(BookingState.values()), EARLIEST, LATEST, EARLIEST, LATEST);
+            default:
+                throw new ValidationException("Unknown state: UNSUPPORTED_STATUS");
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.NearestBookings;
+import ru.practicum.shareit.booking.model.BookingItemRef;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class BookingTimelineCache {
+    private final Map<Long, ItemTimeline> timelinesByItem;
+    private final AtomicLong changes = new AtomicLong();
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    public BookingTimelineCache(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.timeline-cache.size:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.timelinesByItem = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ItemTimeline> eldest) {
+                return size() > maxItems;
+            }
+        };
+    }
+
+    public Map<Long, NearestBookings> nearest(Collection<Long> itemIds, LocalDateTime now) {
+        long nowMillis = BookingIntervalIndex.toMillis(now);
+        Map<Long, ItemTimeline> timelines = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        synchronized (timelinesByItem) {
+            for (Long itemId : itemIds) {
+                ItemTimeline timeline = timelinesByItem.get(itemId);
+                if (timeline == null) {
+                    missing.add(itemId);
+                } else {
+                    timelines.put(itemId, timeline);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            timelines.putAll(load(missing, now));
+        }
+        Map<Long, NearestBookings> nearest = new HashMap<>();
+        timelines.forEach((itemId, timeline) -> nearest.put(itemId, timeline.nearest(itemId, nowMillis)));
+        return nearest;
+    }
+
+    public void approved(long itemId, long bookingId, long bookerId, LocalDateTime start, LocalDateTime end) {
+        changes.incrementAndGet();
+        ItemTimeline timeline;
+        synchronized (timelinesByItem) {
+            timeline = timelinesByItem.get(itemId);
+        }
+        if (timeline != null) {
+            timeline.put(bookingId, bookerId, BookingIntervalIndex.toMillis(start), BookingIntervalIndex.toMillis(end));
+        }
+    }
+
+    public void removed(long itemId) {
+        synchronized (timelinesByItem) {
+            changes.incrementAndGet();
+            timelinesByItem.remove(itemId);
+        }
+    }
+
+    private Map<Long, ItemTimeline> load(List<Long> itemIds, LocalDateTime now) {
+        long seenChanges = changes.get();
+        Map<Long, ItemTimeline> loaded = new HashMap<>();
+        itemIds.forEach(itemId -> loaded.put(itemId, new ItemTimeline()));
+        for (BookingItemRef booking : bookingRepository.findTimelineByItemIdIn(itemIds, BookingState.APPROVED, now)) {
+            loaded.get(booking.getItemId()).put(booking.getId(), booking.getBookerId(),
+                    BookingIntervalIndex.toMillis(booking.getStart()), BookingIntervalIndex.toMillis(booking.getEnd()));
+        }
+        synchronized (timelinesByItem) {
+            if (changes.get() == seenChanges) {
+                loaded.forEach(timelinesByItem::putIfAbsent);
+            }
+        }
+        return loaded;
+    }
+
+    private static class ItemTimeline {
+        private long[] ids = new long[2];
+        private long[] bookers = new long[2];
+        private long[] starts = new long[2];
+        private long[] ends = new long[2];
+        private int size;
+
+        synchronized NearestBookings nearest(long itemId, long now) {
+            int started = firstStartNotBefore(now);
+            if (started > 1) {
+                removeFirst(started - 1);
+                started = 1;
+            }
+            int next = started;
+            while (next < size && starts[next] == now) {
+                next++;
+            }
+            return new NearestBookings(started > 0 ? toBookingDto(itemId, started - 1) : null,
+                    next < size ? toBookingDto(itemId, next) : null);
+        }
+
+        synchronized void put(long id, long booker, long start, long end) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    removeAt(i);
+                    break;
+                }
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                bookers = Arrays.copyOf(bookers, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+            int index = firstStartNotBefore(start);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(bookers, index, bookers, index + 1, size - index);
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ends, index, ends, index + 1, size - index);
+            ids[index] = id;
+            bookers[index] = booker;
+            starts[index] = start;
+            ends[index] = end;
+            size++;
+        }
+
+        private void removeAt(int index) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(bookers, index + 1, bookers, index, size - index - 1);
+            System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+            System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+            size--;
+        }
+
+        private void removeFirst(int count) {
+            System.arraycopy(ids, count, ids, 0, size - count);
+            System.arraycopy(bookers, count, bookers, 0, size - count);
+            System.arraycopy(starts, count, starts, 0, size - count);
+            System.arraycopy(ends, count, ends, 0, size - count);
+            size -= count;
+        }
+
+        private int firstStartNotBefore(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private BookingDto toBookingDto(long itemId, int index) {
+            BookingDto booking = new BookingDto();
+            booking.setId(ids[index]);
+            booking.setItemId(itemId);
+            booking.setBookerId(bookers[index]);
+            booking.setStart(BookingIntervalIndex.toDateTime(starts[index]));
+            booking.setEnd(BookingIntervalIndex.toDateTime(ends[index]));
+            booking.setStatus(BookingState.APPROVED);
+            return booking;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class CommentEligibility {
+    static final int MAX_ENTRIES = 100_000;
+
+    private final Map<Key, LocalDateTime> earliestApprovedStart = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, LocalDateTime> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    public CommentEligibility(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public boolean canComment(long bookerId, long itemId, LocalDateTime now) {
+        LocalDateTime start = earliestApprovedStart.get(new Key(bookerId, itemId));
+        if (start != null && start.isBefore(now)) {
+            return true;
+        }
+        if (bookingRepository.existsByBookerIdAndItemIdAndStatusAndStartBefore(bookerId, itemId, BookingState.APPROVED, now)) {
+            recordApproval(bookerId, itemId, now);
+            return true;
+        }
+        return false;
+    }
+
+    public void recordApproval(long bookerId, long itemId, LocalDateTime start) {
+        earliestApprovedStart.merge(new Key(bookerId, itemId), start, (current, added) -> added.isBefore(current) ? added : current);
+    }
+
+    public void forget(long bookerId, long itemId) {
+        earliestApprovedStart.remove(new Key(bookerId, itemId));
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final long bookerId;
+        private final long itemId;
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+public class ItemWriteLanes {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 5_000;
+
+    private final ThreadPoolExecutor[] lanes;
+    private final long timeoutNanos;
+    private final ThreadLocal<Set<Integer>> heldLanes = ThreadLocal.withInitial(HashSet::new);
+
+    public ItemWriteLanes(int laneCount) {
+        this(laneCount, DEFAULT_QUEUE_CAPACITY, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    @Autowired
+    public ItemWriteLanes(@Value("${shareit.booking.write-lanes:0}") int laneCount,
+                          @Value("${shareit.booking.write-lane-queue:1000}") int queueCapacity,
+                          @Value("${shareit.booking.write-lane-timeout-ms:5000}") long timeoutMillis) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lanes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            int lane = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(() -> {
+                    heldLanes.get().add(lane);
+                    runnable.run();
+                }, "item-write-lane-" + lane);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public <T> T run(long itemId, Callable<T> task) throws Exception {
+        return runAll(Set.of(itemId), task);
+    }
+
+    public <T> T runAll(Collection<Long> itemIds, Callable<T> task) throws Exception {
+        int[] needed = itemIds.stream().mapToInt(this::laneOf).distinct().sorted().toArray();
+        if (Arrays.stream(needed).allMatch(heldLanes.get()::contains)) {
+            return task.call();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Item lane writes cannot join the caller's transaction");
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        return await(submit(needed[0], () -> holdingOthers(needed, deadline, task)), deadline);
+    }
+
+    private <T> T holdingOthers(int[] needed, long deadline, Callable<T> task) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Set<Integer> held = heldLanes.get();
+        Set<Integer> taken = new HashSet<>();
+        try {
+            for (int i = 1; i < needed.length; i++) {
+                CountDownLatch parked = new CountDownLatch(1);
+                submit(needed[i], () -> {
+                    parked.countDown();
+                    done.await();
+                    return null;
+                });
+                if (!parked.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    throw new ServiceUnavailableException("Item write lanes are busy");
+                }
+                taken.add(needed[i]);
+            }
+            held.addAll(taken);
+            return task.call();
+        } finally {
+            held.removeAll(taken);
+            done.countDown();
+        }
+    }
+
+    private <T> Future<T> submit(int lane, Callable<T> task) throws ServiceUnavailableException {
+        try {
+            return lanes[lane].submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Item write lane is full");
+        }
+    }
+
+    private <T> T await(Future<T> result, long deadline) throws Exception {
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            throw new ServiceUnavailableException("Item write lane timed out");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    int laneOf(long itemId) {
+        return Math.floorMod(Long.hashCode(itemId) * 0x9E3779B9, lanes.length);
+    }
+
+    int size() {
+        return lanes.length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -4,11 +4,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import javax.validation.ConstraintViolationException;
 import java.util.List;
 
 @ControllerAdvice
@@ -22,6 +24,13 @@ public class ControllerExceptionHandler {
         return new ResponseEntity<>(applicationError, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ApplicationError> handleConstraintViolationException(ConstraintViolationException e) {
+        ApplicationError applicationError = new ApplicationError(HttpStatus.BAD_REQUEST, "Ошибка валидации. " + e.getMessage(), e);
+        log.error("Constraint Violation Exception Thrown");
+        return new ResponseEntity<>(applicationError, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(ItemNotAvailableException.class)
     public ResponseEntity<ApplicationError> handleItemNotAvailableException(ItemNotAvailableException e) {
         ApplicationError applicationError = new ApplicationError(HttpStatus.BAD_REQUEST, e);
@@ -65,10 +74,24 @@ public class ControllerExceptionHandler {
         return new ResponseEntity<>(applicationError, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApplicationError> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException e) {
+        ApplicationError applicationError = new ApplicationError(HttpStatus.CONFLICT, "Конфликт", e);
+        log.error("Concurrent modification detected");
+        return new ResponseEntity<>(applicationError, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(DuplicateValueException.class)
     public ResponseEntity<ApplicationError> handleDuplicateValueException(DuplicateValueException e) {
         ApplicationError applicationError = new ApplicationError(HttpStatus.CONFLICT, "Конфликт", e);
         log.error("Duplicate Value exception thrown");
         return new ResponseEntity<>(applicationError, HttpStatus.CONFLICT);
     }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApplicationError> handleServiceUnavailableException(ServiceUnavailableException e) {
+        ApplicationError applicationError = new ApplicationError(HttpStatus.SERVICE_UNAVAILABLE, "Сервис перегружен", e);
+        log.error("Service unavailable exception thrown");
+        return new ResponseEntity<>(applicationError, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
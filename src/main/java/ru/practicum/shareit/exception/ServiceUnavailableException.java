@@ -0,0 +1,12 @@
+package ru.practicum.shareit.exception;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties({"cause", "stackTrace", "suppressed", "localizedMessage"})
+public class ServiceUnavailableException extends Exception implements ApiSubError {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
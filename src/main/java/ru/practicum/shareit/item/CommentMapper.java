@@ -3,6 +3,7 @@ package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.CommentRow;
 
 public class CommentMapper {
     public static CommentDto toCommentDto(Comment comment) {
@@ -14,4 +15,13 @@ public class CommentMapper {
         return commentDto;
 
     }
+
+    public static CommentDto toCommentDto(CommentRow row) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(row.getId());
+        commentDto.setText(row.getText());
+        commentDto.setCreated(row.getCreated());
+        commentDto.setAuthorName(row.getAuthorName());
+        return commentDto;
+    }
 }
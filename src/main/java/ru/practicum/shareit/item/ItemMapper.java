@@ -1,9 +1,15 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoShort;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCatalogRow;
+import ru.practicum.shareit.item.model.ItemExportRow;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.stream.Collectors;
 
 public class ItemMapper {
@@ -14,13 +20,52 @@ public class ItemMapper {
         itemDto.setDescription(item.getDescription());
         itemDto.setAvailable(item.isAvailable());
         itemDto.setRequestId(item.getRequest() == null ? null : item.getRequest().getId());
-        if (item.getComments() != null) {
-            itemDto.setComments(item.getComments().stream().map(CommentMapper::toCommentDto).collect(Collectors.toList()));
-        }
         return itemDto;
 
     }
 
+    public static ItemDto toItemDto(Item item, Collection<String> tags) {
+        ItemDto itemDto = toItemDto(item);
+        itemDto.setTags(tags.stream().sorted().collect(Collectors.toList()));
+        return itemDto;
+    }
+
+    public static ItemDto toItemDto(ItemCatalogRow row) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(row.getId());
+        itemDto.setName(row.getName());
+        itemDto.setDescription(row.getDescription());
+        itemDto.setAvailable(row.getAvailable());
+        itemDto.setRequestId(row.getRequestId());
+        itemDto.setLastBooking(toApprovedBooking(row.getId(), row.getLastId(), row.getLastBookerId(), row.getLastStart(), row.getLastEnd()));
+        itemDto.setNextBooking(toApprovedBooking(row.getId(), row.getNextId(), row.getNextBookerId(), row.getNextStart(), row.getNextEnd()));
+        return itemDto;
+    }
+
+    public static ItemDto toItemDto(ItemExportRow row) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(row.getId());
+        itemDto.setName(row.getName());
+        itemDto.setDescription(row.getDescription());
+        itemDto.setAvailable(row.getAvailable());
+        itemDto.setRequestId(row.getRequestId());
+        return itemDto;
+    }
+
+    private static BookingDto toApprovedBooking(Long itemId, Long id, Long bookerId, LocalDateTime start, LocalDateTime end) {
+        if (id == null) {
+            return null;
+        }
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(id);
+        bookingDto.setItemId(itemId);
+        bookingDto.setBookerId(bookerId);
+        bookingDto.setStart(start);
+        bookingDto.setEnd(end);
+        bookingDto.setStatus(BookingState.APPROVED);
+        return bookingDto;
+    }
+
     public static Item toItem(ItemDto itemDto) {
         Item item = new Item();
         item.setId(itemDto.getId());
@@ -1,20 +1,44 @@
 package ru.practicum.shareit.item.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.NextCursorHeader;
+import ru.practicum.shareit.SharerUserId;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
+import ru.practicum.shareit.item.dto.ItemImportReportDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import static ru.practicum.shareit.NdjsonStreamWriter.NDJSON;
+
 @RestController
 @RequestMapping("/items")
 @Validated
 public class ItemController {
+    static final String CSV = "text/csv";
+
     private ItemService service;
 
     @Autowired
@@ -23,36 +47,64 @@ public class ItemController {
     }
 
     @PostMapping
-    public ItemDto create(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public ItemDto create(@SharerUserId Long userId,
                           @RequestBody ItemDto itemDto) throws Exception {
         return service.create(itemDto, userId);
     }
 
+    @PostMapping(value = "/import", consumes = {NDJSON, CSV})
+    public ItemImportReportDto importItems(@SharerUserId long userId,
+                                           @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                           InputStream body) throws Exception {
+        boolean csv = MediaType.valueOf(CSV).includes(contentType);
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        return service.importItems(userId, new InputStreamReader(body, charset), csv);
+    }
+
     @PatchMapping("/{id}")
-    public ItemDto update(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemDto update(@SharerUserId long userId,
                           @RequestBody ItemDto itemDto, @PathVariable long id) throws Exception {
         return service.update(id, itemDto, userId);
     }
 
     @DeleteMapping("/{id}")
-    public ItemDto delete(@RequestHeader("X-Sharer-User-Id") long userId,
+    public ItemDto delete(@SharerUserId long userId,
                           @PathVariable long id) throws Exception {
         return service.delete(id, userId);
     }
 
     @GetMapping("/{id}")
     public ItemDto getById(@PathVariable long id,
-                           @RequestHeader("X-Sharer-User-Id") long userId) throws Exception {
+                           @SharerUserId long userId, WebRequest request) throws Exception {
+        String eTag = service.getETag(id, userId);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         return service.getById(id, userId);
     }
 
+    @GetMapping("/{id}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable long id,
+                                               @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(name = "duration", required = false) Duration duration) throws Exception {
+        return service.getAvailability(id, from, to, duration);
+    }
+
     @GetMapping
-    public List<ItemDto> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
+    public List<ItemDto> getAll(@SharerUserId long userId,
                                 @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
                                 @Min(1) @RequestParam(value = "size", defaultValue = "10") Integer size) {
         return service.getAll(userId, from, size);
     }
 
+    @GetMapping(path = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export(@SharerUserId long userId) throws Exception {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(service.export(userId));
+    }
+
     @GetMapping("/search")
     public List<ItemDto> search(@RequestParam(name = "text") String text,
                                 @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
@@ -60,9 +112,30 @@ public class ItemController {
         return service.search(text, from, size);
     }
 
+    @GetMapping("/filter")
+    public ItemFacetsDto filter(ItemFilterDto filter,
+                                @PositiveOrZero @Min(0) @RequestParam(value = "from", defaultValue = "0") Integer from,
+                                @Min(1) @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        return service.filter(filter, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam(name = "prefix") String prefix,
+                                @Min(1) @RequestParam(value = "size", defaultValue = "10") Integer size) {
+        return service.suggest(prefix, size);
+    }
+
     @PostMapping("{itemId}/comment")
-    public CommentDto addComment(@RequestHeader("X-Sharer-User-Id") long userId, @PathVariable long itemId,
+    public CommentDto addComment(@SharerUserId long userId, @PathVariable long itemId,
                                  @RequestBody CommentDto commentDto) throws Exception {
         return service.addComment(userId, itemId, commentDto);
     }
+
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable long id,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @Min(1) @Max(100) @RequestParam(value = "size", defaultValue = "20") Integer size) throws Exception {
+        CommentPageDto page = service.getComments(id, cursor, size);
+        return NextCursorHeader.ok(page.getComments(), page.getNextCursor());
+    }
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.service.ItemService;
+
+@Component
+@Endpoint(id = "itemsearchindex")
+public class ItemSearchIndexEndpoint {
+    private ItemService service;
+
+    @Autowired
+    public ItemSearchIndexEndpoint(ItemService service) {
+        this.service = service;
+    }
+
+    @WriteOperation
+    public int rebuild() {
+        return service.rebuildSearchIndex();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CommentPageDto {
+    private List<CommentDto> comments;
+    private String nextCursor;
+}
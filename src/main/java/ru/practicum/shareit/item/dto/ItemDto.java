@@ -13,6 +13,8 @@ public class ItemDto {
     private Boolean          available;
     private Long             requestId;
     private List<CommentDto> comments;
+    private Long             commentsCount;
+    private List<String>     tags;
     private BookingDto       lastBooking;
     private BookingDto       nextBooking;
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ItemFacetsDto {
+    private long              total;
+    private long              available;
+    private long              requestLinked;
+    private Map<String, Long> tags;
+    private Map<Long, Long>   owners;
+    private List<ItemDto>     items;
+}
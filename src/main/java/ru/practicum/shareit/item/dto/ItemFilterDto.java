@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ItemFilterDto {
+    private Boolean      available;
+    private List<Long>   owners;
+    private List<String> tags;
+    private boolean      allTags;
+    private Boolean      requestLinked;
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ItemImportReportDto {
+    private long                     total;
+    private long                     imported;
+    private long                     failed;
+    private List<ItemImportErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.model;
+
+public interface ItemCommentCount {
+    Long getItemId();
+
+    Long getTotal();
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.model;
+
+public interface ItemExportRow {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Long getRequestId();
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.model;
+
+public interface ItemFacetRow {
+    Long getId();
+
+    Long getOwnerId();
+
+    Long getRequestId();
+
+    Boolean getAvailable();
+}
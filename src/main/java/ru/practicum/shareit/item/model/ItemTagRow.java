@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.model;
+
+public interface ItemTagRow {
+    Long getItemId();
+
+    String getTag();
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.model;
+
+public interface ItemVersionRow {
+    Long getVersion();
+
+    Long getOwnerId();
+
+    Long getCommentsCount();
+
+    Long getLastCommentId();
+
+    Long getCommentAuthorsVersion();
+}
@@ -1,9 +1,31 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.CommentRow;
+import ru.practicum.shareit.item.model.ItemCommentCount;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+
+    @Query(value = "select r.id as id, r.item as itemId, r.text as text, r.author_name as authorName, r.created as created from ("
+            + "select c.id, c.item, c.text, u.name as author_name, c.created, "
+            + "row_number() over (partition by c.item order by c.id desc) as rn "
+            + "from comments c join users u on u.id = c.author where c.item in (:itemIds)) r "
+            + "where r.rn <= :limit order by r.item, r.id desc", nativeQuery = true)
+    List<CommentRow> findLatestByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("limit") int limit);
+
+    @Query("select c.item.id as itemId, count(c.id) as total from Comment c where c.item.id in :itemIds group by c.item.id")
+    List<ItemCommentCount> countByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select c.id as id, c.item.id as itemId, c.text as text, a.name as authorName, c.created as created "
+            + "from Comment c join c.author a where c.item.id = :itemId and c.id < :beforeId order by c.id desc")
+    List<CommentRow> findItemPageBefore(@Param("itemId") Long itemId, @Param("beforeId") Long beforeId, Pageable pageable);
 }
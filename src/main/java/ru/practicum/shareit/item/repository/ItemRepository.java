@@ -3,19 +3,80 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCatalogRow;
+import ru.practicum.shareit.item.model.ItemExportRow;
+import ru.practicum.shareit.item.model.ItemFacetRow;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.model.ItemTagRow;
+import ru.practicum.shareit.item.model.ItemVersionRow;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    Page<Item> findAllByOwnerId(Long ownerId, Pageable pageable);
+    @Query(value = "select i from Item i where i.owner.id = :ownerId",
+            countQuery = "select count(i) from Item i where i.owner.id = :ownerId")
+    Page<Item> findAllByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    @Query("select case when count(i) > 0 then true else false end from Item i where i.owner.id = :ownerId")
+    boolean existsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query(value = "select p.id as id, p.name as name, p.description as description, p.available as available, p.request_id as requestId, "
+            + "l.id as lastId, l.booker_id as lastBookerId, l.booking_start as lastStart, l.booking_end as lastEnd, "
+            + "n.id as nextId, n.booker_id as nextBookerId, n.booking_start as nextStart, n.booking_end as nextEnd "
+            + "from (select i.id, i.name, i.description, i.available, i.request_id from items i "
+            + "where i.owner_id = :ownerId order by i.id limit :limit offset :offset) p "
+            + "left join (select b.item_id, b.id, b.booker_id, b.booking_start, b.booking_end, "
+            + "row_number() over (partition by b.item_id order by b.booking_start desc) as rn from bookings b "
+            + "where b.item_id in (select i.id from items i where i.owner_id = :ownerId order by i.id limit :limit offset :offset) "
+            + "and b.booking_status = 'APPROVED' and b.booking_start < :now) l on l.item_id = p.id and l.rn = 1 "
+            + "left join (select b.item_id, b.id, b.booker_id, b.booking_start, b.booking_end, "
+            + "row_number() over (partition by b.item_id order by b.booking_start) as rn from bookings b "
+            + "where b.item_id in (select i.id from items i where i.owner_id = :ownerId order by i.id limit :limit offset :offset) "
+            + "and b.booking_status = 'APPROVED' and b.booking_start > :now) n on n.item_id = p.id and n.rn = 1 "
+            + "order by p.id", nativeQuery = true)
+    List<ItemCatalogRow> findOwnerCatalog(@Param("ownerId") Long ownerId, @Param("now") LocalDateTime now,
+                                          @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query("select i from Item i where i.request.id = :requestId order by i.id")
+    List<Item> findAllByRequestId(@Param("requestId") Long requestId);
+
+    @Query("select i from Item i where i.request.id in :requestIds order by i.id")
+    List<Item> findAllByRequestIdIn(@Param("requestIds") List<Long> requestIds);
+
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available, "
+            + "i.owner.id as ownerId from Item i where i.id > :afterId order by i.id")
+    List<ItemSearchRow> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select i.id as id, i.name as name, i.description as description, i.available as available, "
+            + "i.request.id as requestId from Item i where i.owner.id = :ownerId order by i.id")
+    Stream<ItemExportRow> streamAllByOwnerId(@Param("ownerId") Long ownerId);
 
-    List<Item> findAllByRequestId(Long requestId);
+    @Query("select i.id as id, i.owner.id as ownerId, i.request.id as requestId, i.available as available from Item i "
+            + "where i.id > :afterId order by i.id")
+    List<ItemFacetRow> findFacetRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
 
-    List<Item> findAllByRequestIdIn(List<Long> requestId);
+    @Query("select i.id as itemId, t as tag from Item i join i.tags t")
+    List<ItemTagRow> findAllTags();
 
-    Page<Item> findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrue(String nameLike, String descriptionLike, Pageable pageable);
+    @Query("select i.version as version, i.owner.id as ownerId, "
+            + "(select count(c.id) from Comment c where c.item.id = i.id) as commentsCount, "
+            + "(select max(c.id) from Comment c where c.item.id = i.id) as lastCommentId, "
+            + "(select coalesce(sum(c.author.version), 0) from Comment c where c.item.id = i.id) as commentAuthorsVersion "
+            + "from Item i where i.id = :id")
+    Optional<ItemVersionRow> findVersionById(@Param("id") Long id);
 }
@@ -0,0 +1,221 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
+import ru.practicum.shareit.item.model.ItemFacetRow;
+import ru.practicum.shareit.item.model.ItemTagRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemFacetIndex {
+    static final int MAX_OWNER_FACETS = 20;
+    private static final ItemIdSet EMPTY = new ItemIdSet();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ItemIdSet all = new ItemIdSet();
+    private final ItemIdSet available = new ItemIdSet();
+    private final ItemIdSet requestLinked = new ItemIdSet();
+    private final Map<Long, ItemIdSet> byOwner = new HashMap<>();
+    private final Map<String, ItemIdSet> byTag = new HashMap<>();
+    private final Map<Long, Facets> facetsByItem = new HashMap<>();
+    private ItemRepository itemRepository;
+
+    @Autowired
+    public ItemFacetIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        Map<Long, Set<String>> tags = new HashMap<>();
+        for (ItemTagRow row : itemRepository.findAllTags()) {
+            tags.computeIfAbsent(row.getItemId(), id -> new HashSet<>()).add(row.getTag());
+        }
+        long afterId = 0;
+        List<ItemFacetRow> rows;
+        do {
+            rows = itemRepository.findFacetRowsAfter(afterId, PageRequest.of(0, ItemSearchIndex.REBUILD_BATCH));
+            for (ItemFacetRow row : rows) {
+                index(row.getId(), row.getOwnerId(), row.getRequestId() != null, Boolean.TRUE.equals(row.getAvailable()),
+                        tags.getOrDefault(row.getId(), Set.of()));
+                afterId = row.getId();
+            }
+        } while (rows.size() == ItemSearchIndex.REBUILD_BATCH);
+    }
+
+    public void index(long itemId, Long ownerId, boolean linkedToRequest, boolean isAvailable, Collection<String> tags) {
+        lock.writeLock().lock();
+        try {
+            clear(itemId);
+            Facets facets = new Facets(ownerId, isAvailable, linkedToRequest, tags.stream().map(ItemFacetIndex::normalize).collect(Collectors.toSet()));
+            facetsByItem.put(itemId, facets);
+            all.add(itemId);
+            available.set(itemId, isAvailable);
+            requestLinked.set(itemId, linkedToRequest);
+            if (ownerId != null) {
+                byOwner.computeIfAbsent(ownerId, id -> new ItemIdSet()).add(itemId);
+            }
+            facets.tags.forEach(tag -> byTag.computeIfAbsent(tag, t -> new ItemIdSet()).add(itemId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            clear(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> tagsOf(long itemId) {
+        lock.readLock().lock();
+        try {
+            Facets facets = facetsByItem.get(itemId);
+            return facets == null ? new ArrayList<>() : facets.tags.stream().sorted().collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ItemIdSet select(ItemFilterDto filter) {
+        lock.readLock().lock();
+        try {
+            ItemIdSet selection = all.copy();
+            if (filter.getAvailable() != null) {
+                selection = restrict(selection, available, filter.getAvailable());
+            }
+            if (filter.getRequestLinked() != null) {
+                selection = restrict(selection, requestLinked, filter.getRequestLinked());
+            }
+            if (filter.getOwners() != null && !filter.getOwners().isEmpty()) {
+                ItemIdSet owned = new ItemIdSet();
+                for (Long owner : filter.getOwners()) {
+                    owned = owned.or(byOwner.getOrDefault(owner, EMPTY));
+                }
+                selection = selection.and(owned);
+            }
+            if (filter.getTags() != null && !filter.getTags().isEmpty()) {
+                ItemIdSet tagged = filter.isAllTags() ? all : EMPTY;
+                for (String tag : filter.getTags()) {
+                    ItemIdSet ids = byTag.getOrDefault(normalize(tag), EMPTY);
+                    tagged = filter.isAllTags() ? tagged.and(ids) : tagged.or(ids);
+                }
+                selection = selection.and(tagged);
+            }
+            return selection;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ItemFacetsDto count(ItemIdSet selection) {
+        lock.readLock().lock();
+        try {
+            long availableCount = 0;
+            long requestLinkedCount = 0;
+            Map<String, Long> tagCounts = new TreeMap<>();
+            Map<Long, Long> ownerCounts = new HashMap<>();
+            for (int i = 0; i < selection.size(); i++) {
+                Facets item = facetsByItem.get(selection.get(i));
+                if (item == null) {
+                    continue;
+                }
+                if (item.available) {
+                    availableCount++;
+                }
+                if (item.requestLinked) {
+                    requestLinkedCount++;
+                }
+                item.tags.forEach(tag -> tagCounts.merge(tag, 1L, Long::sum));
+                if (item.ownerId != null) {
+                    ownerCounts.merge(item.ownerId, 1L, Long::sum);
+                }
+            }
+            ItemFacetsDto facets = new ItemFacetsDto();
+            facets.setTotal(selection.size());
+            facets.setAvailable(availableCount);
+            facets.setRequestLinked(requestLinkedCount);
+            facets.setTags(tagCounts);
+            Map<Long, Long> topOwners = new LinkedHashMap<>();
+            ownerCounts.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(MAX_OWNER_FACETS)
+                    .forEach(owner -> topOwners.put(owner.getKey(), owner.getValue()));
+            facets.setOwners(topOwners);
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static List<Long> page(ItemIdSet selection, int from, int size) {
+        return selection.slice(from / size * size, size);
+    }
+
+    public static String normalize(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void clear(long itemId) {
+        Facets facets = facetsByItem.remove(itemId);
+        all.remove(itemId);
+        available.remove(itemId);
+        requestLinked.remove(itemId);
+        if (facets == null) {
+            return;
+        }
+        if (facets.ownerId != null) {
+            clearId(byOwner, facets.ownerId, itemId);
+        }
+        facets.tags.forEach(tag -> clearId(byTag, tag, itemId));
+    }
+
+    private static <K> void clearId(Map<K, ItemIdSet> postings, K key, long itemId) {
+        ItemIdSet ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(itemId);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static ItemIdSet restrict(ItemIdSet selection, ItemIdSet facet, boolean value) {
+        return value ? selection.and(facet) : selection.andNot(facet);
+    }
+
+    private static class Facets {
+        private final Long ownerId;
+        private final boolean available;
+        private final boolean requestLinked;
+        private final Set<String> tags;
+
+        Facets(Long ownerId, boolean available, boolean requestLinked, Set<String> tags) {
+            this.ownerId = ownerId;
+            this.available = available;
+            this.requestLinked = requestLinked;
+            this.tags = tags;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.item.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class ItemIdSet {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] ids;
+    private int size;
+
+    public ItemIdSet() {
+        this(EMPTY, 0);
+    }
+
+    private ItemIdSet(long[] ids, int size) {
+        this.ids = ids;
+        this.size = size;
+    }
+
+    public static ItemIdSet of(long... ids) {
+        ItemIdSet set = new ItemIdSet();
+        for (long id : ids) {
+            set.add(id);
+        }
+        return set;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public List<Long> slice(int offset, int limit) {
+        List<Long> page = new ArrayList<>();
+        for (int i = offset; i < size && page.size() < limit; i++) {
+            page.add(ids[i]);
+        }
+        return page;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    void set(long id, boolean present) {
+        if (present) {
+            add(id);
+        } else {
+            remove(id);
+        }
+    }
+
+    void add(long id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ids[at] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        size--;
+        if (size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+
+    ItemIdSet copy() {
+        return new ItemIdSet(Arrays.copyOf(ids, size), size);
+    }
+
+    ItemIdSet and(ItemIdSet other) {
+        long[] result = new long[Math.min(size, other.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (ids[i] < other.ids[j]) {
+                i++;
+            } else if (ids[i] > other.ids[j]) {
+                j++;
+            } else {
+                result[count++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return new ItemIdSet(result, count);
+    }
+
+    ItemIdSet or(ItemIdSet other) {
+        long[] result = new long[size + other.size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || i < size && ids[i] < other.ids[j]) {
+                result[count++] = ids[i++];
+            } else if (i == size || ids[i] > other.ids[j]) {
+                result[count++] = other.ids[j++];
+            } else {
+                result[count++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return new ItemIdSet(result, count);
+    }
+
+    ItemIdSet andNot(ItemIdSet other) {
+        long[] result = new long[size];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.ids[j] < ids[i]) {
+                j++;
+            }
+            if (j == other.size || other.ids[j] != ids[i]) {
+                result[count++] = ids[i];
+            }
+        }
+        return new ItemIdSet(result, count);
+    }
+
+    int intersectionSize(ItemIdSet other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (ids[i] < other.ids[j]) {
+                i++;
+            } else if (ids[i] > other.ids[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+}
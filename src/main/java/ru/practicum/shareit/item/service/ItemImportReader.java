@@ -0,0 +1,164 @@
+package ru.practicum.shareit.item.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+class ItemImportReader {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "available", "requestid", "tags");
+
+    private final BufferedReader reader;
+    private final boolean csv;
+    private List<String> header;
+    private long line;
+
+    ItemImportReader(Reader reader, boolean csv) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.csv = csv;
+    }
+
+    Row next() throws IOException {
+        String text;
+        do {
+            line++;
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+        if (!csv) {
+            try {
+                return new Row(line, MAPPER.readValue(text, ItemDto.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        if (header == null) {
+            header = new ArrayList<>();
+            for (String column : splitCsv(text)) {
+                header.add(column.trim().toLowerCase(Locale.ROOT));
+            }
+            if (!header.contains("name")) {
+                throw new IOException("CSV header must name the columns " + CSV_COLUMNS);
+            }
+            return next();
+        }
+        List<String> values = splitCsv(text);
+        if (values == null || values.size() > header.size()) {
+            return new Row(line, null, "Malformed CSV row");
+        }
+        try {
+            return new Row(line, toItem(values), null);
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, e.getMessage());
+        }
+    }
+
+    long line() {
+        return line;
+    }
+
+    private ItemDto toItem(List<String> values) {
+        ItemDto item = new ItemDto();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (header.get(i)) {
+                case "name":
+                    item.setName(value);
+                    break;
+                case "description":
+                    item.setDescription(value);
+                    break;
+                case "available":
+                    if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                        throw new IllegalArgumentException("Column available must be true or false");
+                    }
+                    item.setAvailable(Boolean.parseBoolean(value));
+                    break;
+                case "requestid":
+                    try {
+                        item.setRequestId(Long.parseLong(value.trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Column requestId must be a number");
+                    }
+                    break;
+                case "tags":
+                    item.setTags(Arrays.asList(value.split(";")));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return item;
+    }
+
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static class Row {
+        private final long line;
+        private final ItemDto item;
+        private final String error;
+
+        Row(long line, ItemDto item, String error) {
+            this.line = line;
+            this.item = item;
+            this.error = error;
+        }
+
+        long getLine() {
+            return line;
+        }
+
+        ItemDto getItem() {
+            return item;
+        }
+
+        String getError() {
+            return error;
+        }
+    }
+}
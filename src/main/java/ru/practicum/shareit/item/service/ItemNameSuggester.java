@@ -0,0 +1,327 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.ItemBookingCount;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Component
+public class ItemNameSuggester {
+    static final int MAX_SUGGESTIONS = 10;
+    private static final Comparator<Name> BY_POPULARITY = Comparator.comparingLong((Name name) -> name.popularity).reversed()
+            .thenComparing(name -> name.key);
+
+    private final Map<Long, ItemState> items = new HashMap<>();
+    private Node root = new Node("");
+    private ItemRepository itemRepository;
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    public ItemNameSuggester(ItemRepository itemRepository, BookingRepository bookingRepository) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @PostConstruct
+    public synchronized void warmUp() {
+        items.clear();
+        root = new Node("");
+        for (ItemBookingCount count : bookingRepository.countBookingsByItem()) {
+            items.put(count.getItemId(), new ItemState(count.getTotal()));
+        }
+        long afterId = 0;
+        List<ItemSearchRow> rows;
+        do {
+            rows = itemRepository.findSearchRowsAfter(afterId, PageRequest.of(0, ItemSearchIndex.REBUILD_BATCH));
+            for (ItemSearchRow row : rows) {
+                index(row.getId(), row.getName(), Boolean.TRUE.equals(row.getAvailable()));
+                afterId = row.getId();
+            }
+        } while (rows.size() == ItemSearchIndex.REBUILD_BATCH);
+        items.values().removeIf(state -> state.key == null);
+    }
+
+    public synchronized void index(long itemId, String name, boolean available) {
+        ItemState state = items.computeIfAbsent(itemId, id -> new ItemState(0));
+        detach(itemId, state);
+        state.key = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        state.display = name;
+        state.available = available;
+        attach(itemId, state);
+    }
+
+    public synchronized void remove(long itemId) {
+        ItemState state = items.remove(itemId);
+        if (state != null) {
+            detach(itemId, state);
+        }
+    }
+
+    public synchronized void recordBooking(long itemId) {
+        ItemState state = items.get(itemId);
+        if (state == null) {
+            return;
+        }
+        detach(itemId, state);
+        state.bookings++;
+        attach(itemId, state);
+    }
+
+    public synchronized List<String> suggest(String prefix, int size) {
+        List<String> suggestions = new ArrayList<>();
+        if (prefix == null || prefix.isBlank()) {
+            return suggestions;
+        }
+        String key = prefix.toLowerCase(Locale.ROOT);
+        Node node = root;
+        int at = 0;
+        while (at < key.length()) {
+            Node child = node.child(key.charAt(at));
+            if (child == null) {
+                return suggestions;
+            }
+            int common = commonPrefix(child.label, key, at);
+            if (common < child.label.length() && at + common < key.length()) {
+                return suggestions;
+            }
+            node = child;
+            at += common;
+        }
+        Name[] top = node.top();
+        for (int i = 0; i < top.length && i < size; i++) {
+            suggestions.add(top[i].display);
+        }
+        return suggestions;
+    }
+
+    private void attach(long itemId, ItemState state) {
+        if (!state.available || state.key.isEmpty()) {
+            return;
+        }
+        Node terminal = insert(state.key);
+        if (terminal.name == null) {
+            terminal.name = new Name(state.key, state.display);
+        }
+        terminal.name.bookingsByItem.put(itemId, state.bookings);
+        terminal.name.popularity += state.bookings;
+        refresh(path(state.key));
+    }
+
+    private void detach(long itemId, ItemState state) {
+        if (state.key == null || !state.available || state.key.isEmpty()) {
+            return;
+        }
+        List<Node> path = path(state.key);
+        Node terminal = path.get(path.size() - 1);
+        if (terminal.name == null || !terminal.name.key.equals(state.key)) {
+            return;
+        }
+        Long bookings = terminal.name.bookingsByItem.remove(itemId);
+        if (bookings != null) {
+            terminal.name.popularity -= bookings;
+        }
+        if (terminal.name.bookingsByItem.isEmpty()) {
+            terminal.name = null;
+            compress(path);
+        }
+        refresh(path);
+    }
+
+    private Node insert(String key) {
+        Node node = root;
+        int at = 0;
+        while (at < key.length()) {
+            Node child = node.child(key.charAt(at));
+            if (child == null) {
+                Node leaf = new Node(key.substring(at));
+                node.addChild(leaf);
+                return leaf;
+            }
+            int common = commonPrefix(child.label, key, at);
+            if (common < child.label.length()) {
+                child = node.split(child, common);
+            }
+            node = child;
+            at += common;
+        }
+        return node;
+    }
+
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int at = 0;
+        while (at < key.length()) {
+            Node child = node.child(key.charAt(at));
+            if (child == null || !key.startsWith(child.label, at)) {
+                break;
+            }
+            path.add(child);
+            node = child;
+            at += child.label.length();
+        }
+        return path;
+    }
+
+    private static void compress(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.name != null) {
+                return;
+            }
+            if (node.children.length == 0) {
+                path.get(i - 1).removeChild(node.label.charAt(0));
+            } else if (node.children.length == 1) {
+                node.absorbOnlyChild();
+            }
+        }
+    }
+
+    private static void refresh(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            path.get(i).recomputeTop();
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int length = 0;
+        while (length < label.length() && from + length < key.length() && label.charAt(length) == key.charAt(from + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static class ItemState {
+        private String key;
+        private String display;
+        private boolean available;
+        private long bookings;
+
+        ItemState(long bookings) {
+            this.bookings = bookings;
+        }
+    }
+
+    private static class Name {
+        private final String key;
+        private final String display;
+        private final Map<Long, Long> bookingsByItem = new HashMap<>();
+        private long popularity;
+
+        Name(String key, String display) {
+            this.key = key;
+            this.display = display;
+        }
+    }
+
+    private static class Node {
+        private static final Name[] NO_NAMES = new Name[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Name name;
+        private Name[] top;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Name[] top() {
+            if (top != null) {
+                return top;
+            }
+            if (children.length == 1) {
+                return children[0].top();
+            }
+            return name == null ? NO_NAMES : new Name[]{name};
+        }
+
+        Node child(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            int insertAt = -indexOf(child.label.charAt(0)) - 1;
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newChildren[insertAt] = child;
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            children = newChildren;
+        }
+
+        void removeChild(char first) {
+            int index = indexOf(first);
+            if (index < 0) {
+                return;
+            }
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            children = newChildren;
+        }
+
+        Node split(Node child, int length) {
+            Node middle = new Node(child.label.substring(0, length));
+            children[indexOf(child.label.charAt(0))] = middle;
+            child.label = child.label.substring(length);
+            middle.children = new Node[]{child};
+            return middle;
+        }
+
+        void absorbOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            children = child.children;
+            name = child.name;
+            top = child.top;
+        }
+
+        void recomputeTop() {
+            if (children.length < 2 && (children.length == 0 || name == null)) {
+                top = null;
+                return;
+            }
+            List<Name> candidates = new ArrayList<>();
+            if (name != null) {
+                candidates.add(name);
+            }
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top()));
+            }
+            candidates.sort(BY_POPULARITY);
+            top = candidates.subList(0, Math.min(MAX_SUGGESTIONS, candidates.size())).toArray(NO_NAMES);
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = children[middle].label.charAt(0);
+                if (candidate < first) {
+                    low = middle + 1;
+                } else if (candidate > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemSearchCache implements MeterBinder {
+    static final int ENTRY_OVERHEAD = 64;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final Clock clock;
+    private long weight;
+    private long version;
+
+    @Autowired
+    public ItemSearchCache(@Value("${shareit.items.search-cache.max-weight:4000000}") long maxWeight,
+                           @Value("${shareit.items.search-cache.ttl:PT1M}") Duration ttl) {
+        this(maxWeight, ttl, Clock.systemUTC());
+    }
+
+    ItemSearchCache(long maxWeight, Duration ttl, Clock clock) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    public synchronized List<ItemDto> get(String text, int from, int size) {
+        Key key = new Key(text, from, size);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= clock.millis()) {
+            drop(key);
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.items;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized void put(String text, int from, int size, List<ItemDto> items, long seenVersion) {
+        if (seenVersion != version) {
+            return;
+        }
+        Key key = new Key(text, from, size);
+        Entry entry = new Entry(List.copyOf(items), clock.millis() + ttlMillis);
+        if (entry.weight > maxWeight) {
+            return;
+        }
+        drop(key);
+        entries.put(key, entry);
+        weight += entry.weight;
+        long now = clock.millis();
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            if (evicted.expiresAt <= now) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidate(String... texts) {
+        version++;
+        Set<String> terms = new HashSet<>();
+        for (String text : texts) {
+            terms.addAll(ItemSearchIndex.tokenize(text));
+        }
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> cached = iterator.next();
+            if (matches(cached.getKey().words, terms)) {
+                iterator.remove();
+                weight -= cached.getValue().weight;
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        invalidations.add(entries.size());
+        entries.clear();
+        weight = 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("items.search.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("items.search.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("items.search.cache.removals", evictions, LongAdder::sum).tag("cause", "size").register(registry);
+        FunctionCounter.builder("items.search.cache.removals", expirations, LongAdder::sum).tag("cause", "expired").register(registry);
+        FunctionCounter.builder("items.search.cache.removals", invalidations, LongAdder::sum).tag("cause", "write").register(registry);
+        Gauge.builder("items.search.cache.hit.ratio", this, ItemSearchCache::hitRatio).register(registry);
+        Gauge.builder("items.search.cache.size", this, ItemSearchCache::size).register(registry);
+        Gauge.builder("items.search.cache.weight", this, ItemSearchCache::weight).register(registry);
+    }
+
+    double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    private void drop(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private static boolean matches(List<String> words, Set<String> terms) {
+        return words.stream().allMatch(word -> terms.stream().anyMatch(term -> term.startsWith(word)));
+    }
+
+    private static class Key {
+        private final List<String> words;
+        private final int from;
+        private final int size;
+
+        Key(String text, int from, int size) {
+            this.words = ItemSearchIndex.tokenize(text).stream().distinct().sorted().collect(Collectors.toList());
+            this.from = from / size * size;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return from == key.from && size == key.size && words.equals(key.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(words, from, size);
+        }
+    }
+
+    private static class Entry {
+        private final List<ItemDto> items;
+        private final long expiresAt;
+        private final long weight;
+
+        Entry(List<ItemDto> items, long expiresAt) {
+            this.items = items;
+            this.expiresAt = expiresAt;
+            this.weight = ENTRY_OVERHEAD + items.stream()
+                    .mapToLong(item -> length(item.getName()) + length(item.getDescription()))
+                    .sum();
+        }
+
+        private static long length(String text) {
+            return text == null ? 0 : text.length();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemSearchIndex {
+    static final int NAME_BOOST = 2;
+    static final int REBUILD_BATCH = 1_000;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+    private Segment segment = new Segment();
+    private List<Consumer<Segment>> changesDuringRebuild;
+    private ItemRepository itemRepository;
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        rebuild();
+    }
+
+    public int rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Segment fresh = new Segment();
+            try {
+                long afterId = 0;
+                List<ItemSearchRow> rows;
+                do {
+                    rows = itemRepository.findSearchRowsAfter(afterId, PageRequest.of(0, REBUILD_BATCH));
+                    for (ItemSearchRow row : rows) {
+                        fresh.put(new Doc(row.getId(), row.getName(), row.getDescription(), Boolean.TRUE.equals(row.getAvailable())));
+                        afterId = row.getId();
+                    }
+                } while (rows.size() == REBUILD_BATCH);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    changesDuringRebuild.forEach(change -> change.accept(fresh));
+                    changesDuringRebuild = null;
+                    segment = fresh;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            return fresh.docs.size();
+        }
+    }
+
+    public void index(long id, String name, String description, boolean available) {
+        Doc doc = new Doc(id, name, description, available);
+        apply(target -> target.put(doc));
+    }
+
+    public void remove(long id) {
+        apply(target -> target.remove(id));
+    }
+
+    public List<Long> search(String text, int from, int size) {
+        List<String> words = tokenize(text).stream().distinct().collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(words, from, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Segment> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(segment);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static class Doc {
+        private final long id;
+        private final boolean available;
+        private final Map<String, Integer> frequencies = new HashMap<>();
+        private int length;
+
+        Doc(long id, String name, String description, boolean available) {
+            this.id = id;
+            this.available = available;
+            tokenize(name).forEach(term -> add(term, NAME_BOOST));
+            tokenize(description).forEach(term -> add(term, 1));
+        }
+
+        private void add(String term, int weight) {
+            frequencies.merge(term, weight, Integer::sum);
+            length += weight;
+        }
+    }
+
+    private static class Segment {
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+        private long totalLength;
+
+        void put(Doc doc) {
+            remove(doc.id);
+            docs.put(doc.id, doc);
+            doc.frequencies.keySet().forEach(term -> postings.computeIfAbsent(term, t -> new HashSet<>()).add(doc.id));
+            totalLength += doc.length;
+        }
+
+        void remove(long id) {
+            Doc doc = docs.remove(id);
+            if (doc == null) {
+                return;
+            }
+            for (String term : doc.frequencies.keySet()) {
+                Set<Long> ids = postings.get(term);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+            totalLength -= doc.length;
+        }
+
+        List<Long> search(List<String> words, int from, int size) {
+            String seed = words.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+            Set<Long> candidates = new HashSet<>();
+            postings.subMap(seed, true, seed + Character.MAX_VALUE, false).values().forEach(candidates::addAll);
+            double averageLength = docs.isEmpty() ? 1 : (double) totalLength / docs.size();
+            Map<Long, Double> scores = new HashMap<>();
+            for (Long id : candidates) {
+                Doc doc = docs.get(id);
+                if (doc.available) {
+                    double score = score(doc, words, averageLength);
+                    if (score > 0) {
+                        scores.put(id, score);
+                    }
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .skip((long) from / size * size)
+                    .limit(size)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        private double score(Doc doc, List<String> words, double averageLength) {
+            double score = 0;
+            double norm = K1 * (1 - B + B * doc.length / averageLength);
+            for (String word : words) {
+                double best = 0;
+                for (Map.Entry<String, Integer> term : doc.frequencies.entrySet()) {
+                    if (!term.getKey().startsWith(word)) {
+                        continue;
+                    }
+                    int frequency = term.getValue();
+                    int documentFrequency = postings.get(term.getKey()).size();
+                    double idf = Math.log(1 + (docs.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                    best = Math.max(best, idf * frequency * (K1 + 1) / (frequency + norm));
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                score += best;
+            }
+            return score;
+        }
+    }
+}
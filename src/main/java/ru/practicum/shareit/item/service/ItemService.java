@@ -1,22 +1,47 @@
 package ru.practicum.shareit.item.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
+import ru.practicum.shareit.item.dto.ItemImportReportDto;
 
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
     ItemDto create(ItemDto itemDto, long userId) throws Exception;
 
+    ItemImportReportDto importItems(long userId, Reader body, boolean csv) throws Exception;
+
     ItemDto update(long itemId, ItemDto itemDto, long userId) throws Exception;
 
     ItemDto delete(long id, long userId) throws Exception;
 
     ItemDto getById(long id, long userId) throws Exception;
 
+    String getETag(long id, long userId);
+
     List<ItemDto> getAll(long userId, Integer from, Integer size);
 
+    StreamingResponseBody export(long userId) throws Exception;
+
     List<ItemDto> search(String text, Integer from, Integer size);
 
+    ItemFacetsDto filter(ItemFilterDto filter, Integer from, Integer size);
+
+    List<String> suggest(String prefix, Integer size);
+
+    int rebuildSearchIndex();
+
     CommentDto addComment(long userId, long itemId, CommentDto commentDto) throws Exception;
+
+    CommentPageDto getComments(long itemId, String cursor, Integer size) throws Exception;
+
+    ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to, Duration duration) throws Exception;
 }
@@ -1,73 +1,176 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.BookingMapper;
-import ru.practicum.shareit.booking.BookingState;
-import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.repository.BookingRepository;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.IdCursor;
+import ru.practicum.shareit.NdjsonStreamWriter;
+import ru.practicum.shareit.WeakETag;
+import ru.practicum.shareit.booking.dto.NearestBookings;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
+import ru.practicum.shareit.booking.service.CommentEligibility;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.UnauthorizedException;
-import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.CommentMapper;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportReportDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.CommentRow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCatalogRow;
+import ru.practicum.shareit.item.model.ItemCommentCount;
+import ru.practicum.shareit.item.model.ItemVersionRow;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.ItemRequestMatcher;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityCache;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 
 @Service
 public class ItemServiceImpl implements ItemService {
+    static final int EMBEDDED_COMMENTS = 10;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_TAG_LENGTH = 64;
+
     private ItemRepository itemRepository;
-    private UserRepository userRepository;
-    private BookingRepository bookingRepository;
+    private UserIdentityCache userIdentityCache;
     private CommentRepository commentRepository;
     private ItemRequestRepository itemRequestRepository;
+    private CommentEligibility commentEligibility;
+    private BookingIntervalIndex bookingIntervalIndex;
+    private BookingTimelineCache bookingTimelineCache;
+    private ItemSearchIndex itemSearchIndex;
+    private ItemNameSuggester itemNameSuggester;
+    private ItemFacetIndex itemFacetIndex;
+    private ItemSearchCache itemSearchCache;
+    private NdjsonStreamWriter ndjsonStreamWriter;
+    private ItemRequestFeed itemRequestFeed;
+    private ItemRequestMatcher itemRequestMatcher;
+    private int importBatchSize;
 
     @Autowired
-    public ItemServiceImpl(ItemRepository itemRepository, UserRepository userRepository, BookingRepository bookingRepository, CommentRepository commentRepository, ItemRequestRepository itemRequestRepository) {
+    public ItemServiceImpl(ItemRepository itemRepository, UserIdentityCache userIdentityCache, CommentRepository commentRepository, ItemRequestRepository itemRequestRepository,
+                           CommentEligibility commentEligibility, BookingIntervalIndex bookingIntervalIndex, BookingTimelineCache bookingTimelineCache,
+                           ItemSearchIndex itemSearchIndex, ItemNameSuggester itemNameSuggester, ItemFacetIndex itemFacetIndex,
+                           ItemSearchCache itemSearchCache, NdjsonStreamWriter ndjsonStreamWriter, ItemRequestFeed itemRequestFeed,
+                           ItemRequestMatcher itemRequestMatcher, @Value("${shareit.items.import-batch-size:500}") int importBatchSize) {
         this.itemRepository = itemRepository;
-        this.userRepository = userRepository;
-        this.bookingRepository = bookingRepository;
+        this.userIdentityCache = userIdentityCache;
         this.commentRepository = commentRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.commentEligibility = commentEligibility;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.bookingTimelineCache = bookingTimelineCache;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemNameSuggester = itemNameSuggester;
+        this.itemFacetIndex = itemFacetIndex;
+        this.itemSearchCache = itemSearchCache;
+        this.ndjsonStreamWriter = ndjsonStreamWriter;
+        this.itemRequestFeed = itemRequestFeed;
+        this.itemRequestMatcher = itemRequestMatcher;
+        this.importBatchSize = importBatchSize;
     }
 
     @Override
     public ItemDto create(ItemDto itemDto, long userId) throws Exception {
         validate(itemDto);
-        User owner = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User owner = userIdentityCache.require(userId);
         Item item = ItemMapper.toItem(itemDto);
         item.setOwner(owner);
+        item.setTags(normalizeTags(itemDto.getTags()));
         if (itemDto.getRequestId() != null) {
             item.setRequest(itemRequestRepository.findById(itemDto.getRequestId()).orElse(null));
         }
         Item savedItem = itemRepository.save(item);
-        return ItemMapper.toItemDto(savedItem);
+        itemSearchIndex.index(savedItem.getId(), savedItem.getName(), savedItem.getDescription(), savedItem.isAvailable());
+        itemNameSuggester.index(savedItem.getId(), savedItem.getName(), savedItem.isAvailable());
+        indexFacets(savedItem);
+        itemSearchCache.invalidate(savedItem.getName(), savedItem.getDescription());
+        itemRequestFeed.itemSaved(savedItem);
+        indexTerms(savedItem);
+        return ItemMapper.toItemDto(savedItem, savedItem.getTags());
+    }
+
+    @Override
+    public ItemImportReportDto importItems(long userId, Reader body, boolean csv) throws Exception {
+        User owner = userIdentityCache.require(userId);
+        ItemImportReader reader = new ItemImportReader(body, csv);
+        ItemImportReportDto report = new ItemImportReportDto();
+        List<Item> batch = new ArrayList<>();
+        List<Long> lines = new ArrayList<>();
+        List<Long> requestIds = new ArrayList<>();
+        ItemImportReader.Row row;
+        try {
+            while ((row = reader.next()) != null) {
+                report.setTotal(report.getTotal() + 1);
+                if (row.getError() != null) {
+                    reportError(report, row.getLine(), row.getError());
+                    continue;
+                }
+                try {
+                    validate(row.getItem());
+                    Item item = ItemMapper.toItem(row.getItem());
+                    item.setId(null);
+                    item.setOwner(owner);
+                    item.setTags(normalizeTags(row.getItem().getTags()));
+                    batch.add(item);
+                    lines.add(row.getLine());
+                    requestIds.add(row.getItem().getRequestId());
+                } catch (ValidationException e) {
+                    reportError(report, row.getLine(), e.getMessage());
+                }
+                if (batch.size() >= importBatchSize) {
+                    saveImportBatch(batch, lines, requestIds, report);
+                }
+            }
+        } catch (IOException e) {
+            report.setTotal(report.getTotal() + 1);
+            reportError(report, reader.line(), "Unreadable import body: " + e.getMessage());
+        }
+        saveImportBatch(batch, lines, requestIds, report);
+        return report;
     }
 
     @Override
     public ItemDto update(long itemId, ItemDto itemDto, long userId) throws Exception {
 
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        userIdentityCache.require(userId);
         Item itemToUpdate = itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException("Item not found"));
         if (!Objects.equals(itemToUpdate.getOwner().getId(), userId)) {
             throw new UnauthorizedException("User can not update this item!");
         }
+        String oldName = itemToUpdate.getName();
+        String oldDescription = itemToUpdate.getDescription();
+        boolean wasAvailable = itemToUpdate.isAvailable();
+        Set<String> oldTags = new HashSet<>(itemFacetIndex.tagsOf(itemId));
+        boolean tagsChanged = false;
         if (itemDto.getName() != null) {
             itemToUpdate.setName(itemDto.getName());
         }
@@ -77,19 +180,41 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             itemToUpdate.setAvailable(itemDto.getAvailable());
         }
+        if (itemDto.getTags() != null) {
+            itemToUpdate.setTags(normalizeTags(itemDto.getTags()));
+            tagsChanged = !oldTags.equals(itemToUpdate.getTags());
+        }
         Item item = itemRepository.save(itemToUpdate);
-        return ItemMapper.toItemDto(item);
+        itemSearchIndex.index(item.getId(), item.getName(), item.getDescription(), item.isAvailable());
+        itemNameSuggester.index(item.getId(), item.getName(), item.isAvailable());
+        indexFacets(item);
+        itemRequestFeed.itemSaved(item);
+        indexTerms(item);
+        if (!Objects.equals(oldName, item.getName()) || !Objects.equals(oldDescription, item.getDescription())
+                || wasAvailable != item.isAvailable() || tagsChanged) {
+            itemSearchCache.invalidate(oldName, oldDescription, item.getName(), item.getDescription());
+        }
+        return withComments(List.of(ItemMapper.toItemDto(item, item.getTags()))).get(0);
     }
 
     @Override
     public ItemDto delete(long id, long userId) throws Exception {
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        userIdentityCache.require(userId);
         Item itemToDelete = itemRepository.findById(id).orElseThrow(() -> new ItemNotFoundException("Item not found"));
         if (!Objects.equals(itemToDelete.getOwner().getId(), userId)) {
             throw new UnauthorizedException("User can not delete this item!");
         }
+        List<String> tags = itemFacetIndex.tagsOf(id);
         itemRepository.deleteById(id);
-        return ItemMapper.toItemDto(itemToDelete);
+        bookingIntervalIndex.removeItem(id);
+        bookingTimelineCache.removed(id);
+        itemSearchIndex.remove(id);
+        itemNameSuggester.remove(id);
+        itemFacetIndex.remove(id);
+        itemRequestFeed.itemRemoved(itemToDelete);
+        itemRequestMatcher.remove(id);
+        itemSearchCache.invalidate(itemToDelete.getName(), itemToDelete.getDescription());
+        return ItemMapper.toItemDto(itemToDelete, tags);
     }
 
     @Override
@@ -97,40 +222,56 @@ public class ItemServiceImpl implements ItemService {
         LocalDateTime now = LocalDateTime.now();
 
         Item item = itemRepository.findById(id).orElseThrow(() -> new ItemNotFoundException("Item not found"));
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        userIdentityCache.require(userId);
+        ItemDto itemDto = withComments(List.of(ItemMapper.toItemDto(item, itemFacetIndex.tagsOf(id)))).get(0);
         if (!item.getOwner().getId().equals(userId)) {
-            return ItemMapper.toItemDto(item);
+            return itemDto;
         }
-        ItemDto itemDto = ItemMapper.toItemDto(item);
 
-        List<Booking> lastBookingsList = bookingRepository.findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc(List.of(item.getId()), BookingState.APPROVED, now);
-        List<Booking> nextBookingList = bookingRepository.findAllByItemIdInAndStatusAndStartAfterOrderByStart(List.of(item.getId()), BookingState.APPROVED, now);
-        itemDto.setLastBooking(lastBookingsList.isEmpty() ? null : BookingMapper.toBookingDto(lastBookingsList.get(0)));
-        itemDto.setNextBooking(nextBookingList.isEmpty() ? null : BookingMapper.toBookingDto(nextBookingList.get(0)));
+        NearestBookings nearest = bookingTimelineCache.nearest(List.of(item.getId()), now).get(item.getId());
+        itemDto.setLastBooking(nearest.getLast());
+        itemDto.setNextBooking(nearest.getNext());
         return itemDto;
     }
 
+    @Override
+    public String getETag(long id, long userId) {
+        Optional<ItemVersionRow> row = itemRepository.findVersionById(id);
+        if (row.isEmpty() || !userIdentityCache.exists(userId)) {
+            return null;
+        }
+        ItemVersionRow version = row.get();
+        if (!version.getOwnerId().equals(userId)) {
+            return WeakETag.of(id, version.getVersion(), version.getCommentsCount(), version.getLastCommentId(),
+                    version.getCommentAuthorsVersion());
+        }
+        NearestBookings nearest = bookingTimelineCache.nearest(List.of(id), LocalDateTime.now()).get(id);
+        return WeakETag.of(id, version.getVersion(), version.getCommentsCount(), version.getLastCommentId(),
+                version.getCommentAuthorsVersion(), "owner",
+                nearest.getLast() == null ? null : nearest.getLast().getId(),
+                nearest.getNext() == null ? null : nearest.getNext().getId());
+    }
+
     @Override
     public List<ItemDto> getAll(long userId, Integer from, Integer size) {
-        LocalDateTime now = LocalDateTime.now();
-        List<Item> itemsByOwnerId = itemRepository.findAllByOwnerId(userId, PageRequest.of(from / size, size)).getContent();
-        List<Long> ownerItemIds = itemsByOwnerId.stream().map(Item::getId).collect(toList());
-        List<Booking> lastBookingsList = bookingRepository.findAllByItemIdInAndStatusAndEndBeforeOrStartBeforeAndEndAfter(ownerItemIds, BookingState.APPROVED, now, now, now);
-        List<Booking> nextBookingList = bookingRepository.findAllByItemIdInAndStatusAndStartAfter(ownerItemIds, BookingState.APPROVED, now);
-        Map<Long, List<Booking>> last = lastBookingsList.stream().collect(Collectors.groupingBy(booking -> booking.getItem().getId(), Collectors.collectingAndThen(toList(),
-                e -> e.stream().sorted(Comparator.comparing(Booking::getStart))
-                        .collect(toList()))));
-        Map<Long, List<Booking>> next = nextBookingList.stream().collect(Collectors.groupingBy(booking -> booking.getItem().getId(), Collectors.collectingAndThen(toList(),
-                e -> e.stream().sorted(Comparator.comparing(Booking::getStart))
-                        .collect(toList()))));
-        List<ItemDto> itemDtos = new ArrayList<>();
-        itemsByOwnerId.forEach(item -> {
-            ItemDto itemDto = ItemMapper.toItemDto(item);
-            itemDto.setLastBooking(last.get(item.getId()) == null ? null : BookingMapper.toBookingDto(last.get(item.getId()).get(last.get(item.getId()).size() - 1)));
-            itemDto.setNextBooking(next.get(item.getId()) == null ? null : BookingMapper.toBookingDto(next.get(item.getId()).get(0)));
-            itemDtos.add(itemDto);
-        });
-        return itemDtos;
+        List<ItemCatalogRow> rows = itemRepository.findOwnerCatalog(userId, LocalDateTime.now(), size, from / size * size);
+        return withComments(rows.stream()
+                .map(row -> {
+                    ItemDto itemDto = ItemMapper.toItemDto(row);
+                    itemDto.setTags(itemFacetIndex.tagsOf(row.getId()));
+                    return itemDto;
+                })
+                .collect(toList()));
+    }
+
+    @Override
+    public StreamingResponseBody export(long userId) throws Exception {
+        userIdentityCache.require(userId);
+        return out -> ndjsonStreamWriter.write(() -> itemRepository.streamAllByOwnerId(userId), row -> {
+            ItemDto itemDto = ItemMapper.toItemDto(row);
+            itemDto.setTags(itemFacetIndex.tagsOf(row.getId()));
+            return itemDto;
+        }, out);
     }
 
     @Override
@@ -138,9 +279,49 @@ public class ItemServiceImpl implements ItemService {
         if (text == null || text.isBlank()) {
             return new ArrayList<>();
         }
-        return itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrue(text, text, PageRequest.of(from / size, size, Sort.by("id"))).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(toList());
+        List<ItemDto> cached = itemSearchCache.get(text, from, size);
+        if (cached != null) {
+            return cached;
+        }
+        long version = itemSearchCache.version();
+        List<Long> ids = itemSearchIndex.search(text, from, size);
+        List<ItemDto> found = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Item::getId, item -> item));
+            found = withComments(ids.stream()
+                    .filter(items::containsKey)
+                    .map(id -> ItemMapper.toItemDto(items.get(id), itemFacetIndex.tagsOf(id)))
+                    .collect(toList()));
+        }
+        itemSearchCache.put(text, from, size, found, version);
+        return found;
+    }
+
+    @Override
+    public ItemFacetsDto filter(ItemFilterDto filter, Integer from, Integer size) {
+        ItemIdSet selection = itemFacetIndex.select(filter);
+        ItemFacetsDto facets = itemFacetIndex.count(selection);
+        List<Long> ids = ItemFacetIndex.page(selection, from, size);
+        Map<Long, Item> items = ids.isEmpty() ? Map.of() : itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        facets.setItems(withComments(ids.stream()
+                .filter(items::containsKey)
+                .map(id -> ItemMapper.toItemDto(items.get(id), itemFacetIndex.tagsOf(id)))
+                .collect(toList())));
+        return facets;
+    }
+
+    @Override
+    public List<String> suggest(String prefix, Integer size) {
+        return itemNameSuggester.suggest(prefix, Math.min(size, ItemNameSuggester.MAX_SUGGESTIONS));
+    }
+
+    @Override
+    public int rebuildSearchIndex() {
+        int indexed = itemSearchIndex.rebuild();
+        itemSearchCache.clear();
+        return indexed;
     }
 
     @Override
@@ -148,14 +329,10 @@ public class ItemServiceImpl implements ItemService {
         if (commentDto.getText() == null || commentDto.getText().isBlank()) {
             throw new ValidationException("Empty comment");
         }
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User user = userIdentityCache.require(userId);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException("Item not found"));
         LocalDateTime now = LocalDateTime.now();
-        boolean userBookedItem = bookingRepository.findAllByBookerId(userId).stream()
-                .anyMatch(booking -> Objects.equals(booking.getItem().getId(), item.getId())
-                        && booking.getStatus().equals(BookingState.APPROVED)
-                        && booking.getStart().isBefore(now));
-        if (!userBookedItem) {
+        if (!commentEligibility.canComment(userId, item.getId(), now)) {
             throw new ValidationException("Unauthorized");
         }
         Comment comment = new Comment();
@@ -164,9 +341,152 @@ public class ItemServiceImpl implements ItemService {
         comment.setText(commentDto.getText());
         comment.setItem(item);
         Comment savedComment = commentRepository.save(comment);
+        itemSearchCache.invalidate(item.getName(), item.getDescription());
         return CommentMapper.toCommentDto(savedComment);
     }
 
+    @Override
+    public CommentPageDto getComments(long itemId, String cursor, Integer size) throws Exception {
+        long beforeId = IdCursor.decode(cursor, Long.MAX_VALUE);
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException("Item not found");
+        }
+        List<CommentRow> rows = commentRepository.findItemPageBefore(itemId, beforeId, PageRequest.of(0, size + 1));
+        boolean hasNext = rows.size() > size;
+        List<CommentRow> content = hasNext ? rows.subList(0, size) : rows;
+        CommentPageDto page = new CommentPageDto();
+        page.setComments(content.stream()
+                .map(CommentMapper::toCommentDto)
+                .collect(toList()));
+        if (hasNext) {
+            page.setNextCursor(IdCursor.encode(content.get(content.size() - 1).getId()));
+        }
+        return page;
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to, Duration duration) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+        if (to == null || !to.isAfter(start)) {
+            throw new ValidationException("Availability range end must be after its start");
+        }
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new ValidationException("Duration must be positive");
+        }
+        if (!bookingIntervalIndex.tracks(itemId) && !itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException("Item not found");
+        }
+        List<TimeSlotDto> busy = bookingIntervalIndex.busy(itemId, start, to);
+        List<TimeSlotDto> free = new ArrayList<>();
+        LocalDateTime freeFrom = start;
+        for (TimeSlotDto slot : busy) {
+            if (slot.getStart().isAfter(freeFrom)) {
+                free.add(new TimeSlotDto(freeFrom, slot.getStart()));
+            }
+            freeFrom = slot.getEnd();
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new TimeSlotDto(freeFrom, to));
+        }
+        ItemAvailabilityDto availability = new ItemAvailabilityDto();
+        availability.setItemId(itemId);
+        availability.setFrom(start);
+        availability.setTo(to);
+        availability.setBusy(busy);
+        availability.setFree(free);
+        if (duration != null) {
+            LocalDateTime windowStart = bookingIntervalIndex.nextFree(itemId, start, duration);
+            availability.setNextFreeWindow(new TimeSlotDto(windowStart, windowStart.plus(duration)));
+        }
+        return availability;
+    }
+
+    private List<ItemDto> withComments(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        List<Long> itemIds = items.stream().map(ItemDto::getId).collect(toList());
+        Map<Long, List<CommentDto>> comments = commentRepository.findLatestByItemIdIn(itemIds, EMBEDDED_COMMENTS).stream()
+                .collect(groupingBy(CommentRow::getItemId, mapping(CommentMapper::toCommentDto, toList())));
+        Map<Long, Long> counts = commentRepository.countByItemIdIn(itemIds).stream()
+                .collect(Collectors.toMap(ItemCommentCount::getItemId, ItemCommentCount::getTotal));
+        for (ItemDto itemDto : items) {
+            itemDto.setComments(comments.getOrDefault(itemDto.getId(), new ArrayList<>()));
+            itemDto.setCommentsCount(counts.getOrDefault(itemDto.getId(), 0L));
+        }
+        return items;
+    }
+
+    private void saveImportBatch(List<Item> batch, List<Long> lines, List<Long> requestIds, ItemImportReportDto report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Set<Long> wanted = requestIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+            Map<Long, ItemRequest> requests = wanted.isEmpty() ? Map.of() : itemRequestRepository.findAllById(wanted).stream()
+                    .collect(Collectors.toMap(ItemRequest::getId, request -> request));
+            for (int i = 0; i < batch.size(); i++) {
+                if (requestIds.get(i) != null) {
+                    batch.get(i).setRequest(requests.get(requestIds.get(i)));
+                }
+            }
+            List<String> terms = new ArrayList<>();
+            for (Item item : itemRepository.saveAll(batch)) {
+                itemSearchIndex.index(item.getId(), item.getName(), item.getDescription(), item.isAvailable());
+                itemNameSuggester.index(item.getId(), item.getName(), item.isAvailable());
+                indexFacets(item);
+                itemRequestFeed.itemSaved(item);
+                indexTerms(item);
+                terms.add(item.getName());
+                terms.add(item.getDescription());
+            }
+            itemSearchCache.invalidate(terms.toArray(new String[0]));
+            report.setImported(report.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            for (Long line : lines) {
+                reportError(report, line, "Batch was not saved: " + e.getMostSpecificCause().getMessage());
+            }
+        } finally {
+            batch.clear();
+            lines.clear();
+            requestIds.clear();
+        }
+    }
+
+    private void reportError(ItemImportReportDto report, long line, String error) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ItemImportErrorDto(line, error));
+        }
+    }
+
+    private void indexFacets(Item item) {
+        itemFacetIndex.index(item.getId(), item.getOwner().getId(), item.getRequest() != null, item.isAvailable(), item.getTags());
+    }
+
+    private void indexTerms(Item item) {
+        itemRequestMatcher.index(item.getId(), item.getOwner().getId(), item.getName(), item.getDescription());
+    }
+
+    private Set<String> normalizeTags(List<String> tags) throws ValidationException {
+        Set<String> normalized = new HashSet<>();
+        if (tags == null) {
+            return normalized;
+        }
+        for (String tag : tags) {
+            if (tag == null || tag.isBlank()) {
+                continue;
+            }
+            String value = ItemFacetIndex.normalize(tag);
+            if (value.length() > MAX_TAG_LENGTH) {
+                throw new ValidationException("Tag is too long");
+            }
+            normalized.add(value);
+        }
+        return normalized;
+    }
+
     private void validate(ItemDto itemDto) throws ValidationException {
         if (itemDto == null || itemDto.getName() == null || itemDto.getName().isBlank() || itemDto.getDescription() == null
                 || itemDto.getDescription().isBlank() || itemDto.getAvailable() == null) {
@@ -4,16 +4,20 @@ import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class ItemRequestMapper {
-    public static ItemRequestDto toItemRequestDto(ItemRequest itemRequest) {
+    public static ItemRequestDto toItemRequestDto(ItemRequest itemRequest, Function<Long, List<String>> tagsOf) {
         ItemRequestDto itemRequestDto = new ItemRequestDto();
         itemRequestDto.setId(itemRequest.getId());
         itemRequestDto.setDescription(itemRequest.getDescription());
         itemRequestDto.setRequester(itemRequest.getRequester().getId());
         itemRequestDto.setCreated(itemRequest.getCreated());
-        itemRequestDto.setItems(itemRequest.getItems() == null ? null : itemRequest.getItems().stream().map(ItemMapper::toItemDto).collect(Collectors.toList()));
+        itemRequestDto.setItems(itemRequest.getItems() == null ? null : itemRequest.getItems().stream()
+                .map(item -> ItemMapper.toItemDto(item, tagsOf.apply(item.getId())))
+                .collect(Collectors.toList()));
         return itemRequestDto;
     }
 }
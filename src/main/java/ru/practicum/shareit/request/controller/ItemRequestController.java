@@ -1,9 +1,14 @@
 package ru.practicum.shareit.request.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.NextCursorHeader;
+import ru.practicum.shareit.SharerUserId;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
 import javax.validation.constraints.PositiveOrZero;
@@ -13,6 +18,7 @@ import java.util.List;
 @RequestMapping(path = "/requests")
 @Validated
 public class ItemRequestController {
+    private static final int DEFAULT_PAGE_SIZE = 20;
 
     private ItemRequestService service;
 
@@ -22,25 +28,40 @@ public class ItemRequestController {
     }
 
     @PostMapping
-    public ItemRequestDto create(@RequestHeader("X-Sharer-User-Id") Long userId, @RequestBody ItemRequestDto itemRequestDto) throws Exception {
+    public ItemRequestDto create(@SharerUserId Long userId, @RequestBody ItemRequestDto itemRequestDto) throws Exception {
         return service.create(itemRequestDto, userId);
     }
 
     @GetMapping
-    public List<ItemRequestDto> getItemRequests(@RequestHeader("X-Sharer-User-Id") Long userId) throws Exception {
+    public List<ItemRequestDto> getItemRequests(@SharerUserId Long userId) throws Exception {
         return service.getAllOwnRequests(userId);
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllItemRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                   @PositiveOrZero @RequestParam(value = "from", required = false) Integer from,
-                                                   @RequestParam(value = "size", required = false) Integer size) throws Exception {
-        return service.getAllUserRequests(userId, from, size);
+    public ResponseEntity<List<ItemRequestDto>> getAllItemRequests(@SharerUserId Long userId,
+                                                                   @PositiveOrZero @RequestParam(value = "from", required = false) Integer from,
+                                                                   @RequestParam(value = "size", required = false) Integer size,
+                                                                   @RequestParam(value = "cursor", required = false) String cursor) throws Exception {
+        if (cursor == null) {
+            return ResponseEntity.ok(service.getAllUserRequests(userId, from, size));
+        }
+        ItemRequestPageDto page = service.getAllUserRequestsAfter(userId, cursor,
+                size == null ? DEFAULT_PAGE_SIZE : Math.min(size, NextCursorHeader.MAX_PAGE_SIZE));
+        return NextCursorHeader.ok(page.getRequests(), page.getNextCursor());
+    }
+
+    @GetMapping("/inbox")
+    public List<ItemRequestDto> getInbox(@SharerUserId Long userId) throws Exception {
+        return service.getInbox(userId);
     }
 
     @GetMapping("/{requestId}")
-    public ItemRequestDto getItemRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                         @PathVariable Long requestId) throws Exception {
+    public ItemRequestDto getItemRequest(@SharerUserId Long userId,
+                                         @PathVariable Long requestId, WebRequest request) throws Exception {
+        String eTag = service.getETag(userId, requestId);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         return service.getById(userId, requestId);
     }
 }
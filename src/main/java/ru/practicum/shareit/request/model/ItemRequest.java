@@ -15,7 +15,8 @@ import java.util.List;
 @Table(name = "item_requests")
 public class ItemRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_requests_seq")
+    @SequenceGenerator(name = "item_requests_seq", sequenceName = "item_requests_seq", allocationSize = 50)
     private Long          id;
     private String        description;
     @ManyToOne(optional = false)
@@ -26,5 +27,7 @@ public class ItemRequest {
     @JsonManagedReference
     @OneToMany(mappedBy = "request", cascade = CascadeType.ALL)
     private List<Item>    items;
+    @Version
+    private long          version;
 
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.request.model;
+
+public interface ItemRequestVersionRow {
+    Long getVersion();
+
+    Long getItemCount();
+
+    Long getItemVersions();
+
+    Long getLastItemId();
+}
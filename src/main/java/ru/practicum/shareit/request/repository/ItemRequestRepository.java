@@ -1,16 +1,30 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestVersionRow;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
     List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(Long requesterId);
 
-    Page<ItemRequest> findAllByRequesterIdNotOrderByCreatedDesc(Long requesterId, Pageable pageable);
+    @Query("select r from ItemRequest r join fetch r.requester where r.created <= :created order by r.created desc, r.id desc")
+    List<ItemRequest> findLatest(@Param("created") LocalDateTime created, Pageable pageable);
+
+    @Query("select r from ItemRequest r join fetch r.requester u where u.id <> :userId "
+            + "and r.created <= :created and (r.created < :created or r.id < :id) order by r.created desc, r.id desc")
+    List<ItemRequest> findFeedPageBefore(@Param("userId") Long userId, @Param("created") LocalDateTime created,
+                                         @Param("id") Long id, Pageable pageable);
+
+    @Query("select r.version as version, count(i.id) as itemCount, coalesce(sum(i.version), 0) as itemVersions, "
+            + "coalesce(max(i.id), 0) as lastItemId from ItemRequest r left join r.items i where r.id = :id group by r.id, r.version")
+    Optional<ItemRequestVersionRow> findVersionById(@Param("id") Long id);
 }
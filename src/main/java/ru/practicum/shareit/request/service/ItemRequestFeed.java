@@ -0,0 +1,208 @@
+package ru.practicum.shareit.request.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.TimeIdCursor;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemFacetIndex;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemRequestFeed {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> byId = new HashMap<>();
+    private final Entry[] ring;
+    private int head;
+    private int size;
+    private boolean loaded;
+    private boolean complete;
+    private ItemRequestRepository itemRequestRepository;
+    private ItemRepository itemRepository;
+    private ItemFacetIndex itemFacetIndex;
+
+    @Autowired
+    public ItemRequestFeed(ItemRequestRepository itemRequestRepository, ItemRepository itemRepository, ItemFacetIndex itemFacetIndex,
+                           @Value("${shareit.requests.feed-size:1000}") int capacity) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.itemFacetIndex = itemFacetIndex;
+        this.ring = new Entry[Math.max(1, capacity)];
+    }
+
+    public List<ItemRequestDto> page(long userId, LocalDateTime beforeCreated, long beforeId, int from, int limit) {
+        load();
+        lock.readLock().lock();
+        try {
+            List<ItemRequestDto> page = new ArrayList<>();
+            int skipped = 0;
+            for (int i = 0; i < size && page.size() < limit; i++) {
+                Entry entry = get(i);
+                if (entry.requesterId == userId || !older(entry, beforeCreated, beforeId)) {
+                    continue;
+                }
+                if (skipped < from) {
+                    skipped++;
+                } else {
+                    page.add(entry.toDto());
+                }
+            }
+            return page.size() == limit || complete ? page : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(ItemRequest request) {
+        lock.writeLock().lock();
+        try {
+            if (loaded && !byId.containsKey(request.getId())) {
+                insert(new Entry(request, new ArrayList<>()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void itemSaved(Item item) {
+        if (item.getRequest() == null) {
+            return;
+        }
+        ItemDto itemDto = ItemMapper.toItemDto(item, itemFacetIndex.tagsOf(item.getId()));
+        lock.writeLock().lock();
+        try {
+            Entry entry = byId.get(item.getRequest().getId());
+            if (entry != null) {
+                List<ItemDto> items = entry.items.stream()
+                        .filter(existing -> existing.getId() != itemDto.getId())
+                        .collect(Collectors.toCollection(ArrayList::new));
+                items.add(itemDto);
+                entry.items = items;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void itemRemoved(Item item) {
+        if (item.getRequest() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry entry = byId.get(item.getRequest().getId());
+            if (entry != null) {
+                entry.items = entry.items.stream()
+                        .filter(existing -> existing.getId() != item.getId())
+                        .collect(Collectors.toList());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            List<ItemRequest> requests = itemRequestRepository.findLatest(TimeIdCursor.first().getTime(), PageRequest.of(0, ring.length + 1));
+            List<ItemRequest> kept = requests.size() > ring.length ? requests.subList(0, ring.length) : requests;
+            Map<Long, List<ItemDto>> items = kept.isEmpty() ? Map.of() : itemRepository.findAllByRequestIdIn(kept.stream()
+                            .map(ItemRequest::getId)
+                            .collect(Collectors.toList())).stream()
+                    .collect(Collectors.groupingBy(item -> item.getRequest().getId(),
+                            Collectors.mapping(item -> ItemMapper.toItemDto(item, itemFacetIndex.tagsOf(item.getId())), Collectors.toList())));
+            for (ItemRequest request : kept) {
+                Entry entry = new Entry(request, items.getOrDefault(request.getId(), new ArrayList<>()));
+                ring[size++] = entry;
+                byId.put(entry.id, entry);
+            }
+            complete = requests.size() <= ring.length;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(Entry entry) {
+        int position = 0;
+        while (position < size && older(entry, get(position).created, get(position).id)) {
+            position++;
+        }
+        if (size == ring.length) {
+            complete = false;
+            if (position == size) {
+                return;
+            }
+            byId.remove(get(size - 1).id);
+            size--;
+        }
+        head = (head - 1 + ring.length) % ring.length;
+        size++;
+        for (int i = 0; i < position; i++) {
+            ring[(head + i) % ring.length] = get(i + 1);
+        }
+        ring[(head + position) % ring.length] = entry;
+        byId.put(entry.id, entry);
+    }
+
+    private Entry get(int index) {
+        return ring[(head + index) % ring.length];
+    }
+
+    private static boolean older(Entry entry, LocalDateTime created, long id) {
+        int compare = entry.created.compareTo(created);
+        return compare < 0 || compare == 0 && entry.id < id;
+    }
+
+    private static class Entry {
+        private final long id;
+        private final String description;
+        private final long requesterId;
+        private final LocalDateTime created;
+        private List<ItemDto> items;
+
+        Entry(ItemRequest request, List<ItemDto> items) {
+            this.id = request.getId();
+            this.description = request.getDescription();
+            this.requesterId = request.getRequester().getId();
+            this.created = request.getCreated();
+            this.items = items;
+        }
+
+        ItemRequestDto toDto() {
+            ItemRequestDto itemRequestDto = new ItemRequestDto();
+            itemRequestDto.setId(id);
+            itemRequestDto.setDescription(description);
+            itemRequestDto.setRequester(requesterId);
+            itemRequestDto.setCreated(created);
+            itemRequestDto.setItems(new ArrayList<>(items));
+            return itemRequestDto;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class ItemRequestMatcher {
+    static final int NAME_BOOST = 2;
+    static final int MIN_TERM_LENGTH = 3;
+    private static final int WARM_UP_BATCH = 1_000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Terms> termsByItem = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Integer> itemCountByOwner = new HashMap<>();
+    private final Map<Long, Deque<Long>> inboxes = new HashMap<>();
+    private final int topOwners;
+    private final int inboxSize;
+    private final ExecutorService worker;
+    private ItemRepository itemRepository;
+
+    @Autowired
+    public ItemRequestMatcher(ItemRepository itemRepository,
+                              @Value("${shareit.requests.match.top-owners:5}") int topOwners,
+                              @Value("${shareit.requests.match.inbox-size:100}") int inboxSize,
+                              @Value("${shareit.requests.match.queue-capacity:1000}") int queueCapacity) {
+        this(itemRepository, topOwners, inboxSize, new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "item-request-matcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    ItemRequestMatcher(ItemRepository itemRepository, int topOwners, int inboxSize, ExecutorService worker) {
+        this.itemRepository = itemRepository;
+        this.topOwners = Math.max(1, topOwners);
+        this.inboxSize = Math.max(1, inboxSize);
+        this.worker = worker;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        long afterId = 0;
+        List<ItemSearchRow> rows;
+        do {
+            rows = itemRepository.findSearchRowsAfter(afterId, PageRequest.of(0, WARM_UP_BATCH));
+            for (ItemSearchRow row : rows) {
+                if (row.getOwnerId() != null) {
+                    index(row.getId(), row.getOwnerId(), row.getName(), row.getDescription());
+                }
+                afterId = row.getId();
+            }
+        } while (rows.size() == WARM_UP_BATCH);
+    }
+
+    public void index(long itemId, long ownerId, String name, String description) {
+        Terms terms = new Terms(ownerId, name, description);
+        lock.writeLock().lock();
+        try {
+            clear(itemId);
+            termsByItem.put(itemId, terms);
+            itemCountByOwner.merge(ownerId, 1, Integer::sum);
+            terms.weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>())
+                    .merge(ownerId, weight, Integer::sum));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long itemId) {
+        lock.writeLock().lock();
+        try {
+            clear(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void submit(ItemRequest request) {
+        Pending pending = new Pending(request.getId(), request.getRequester().getId(), request.getDescription());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pending);
+                }
+            });
+        } else {
+            enqueue(pending);
+        }
+    }
+
+    public List<Long> inbox(long ownerId) {
+        lock.readLock().lock();
+        try {
+            Deque<Long> inbox = inboxes.get(ownerId);
+            return inbox == null ? new ArrayList<>() : new ArrayList<>(inbox);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Long> match(long requesterId, String description) {
+        Set<String> words = ItemSearchIndex.tokenize(description).stream()
+                .filter(word -> word.length() >= MIN_TERM_LENGTH)
+                .collect(Collectors.toSet());
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            for (String word : words) {
+                Map<Long, Integer> owners = postings.get(word);
+                if (owners == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (double) itemCountByOwner.size() / owners.size());
+                owners.forEach((ownerId, weight) -> {
+                    if (ownerId != requesterId) {
+                        scores.merge(ownerId, idf * (1 + Math.log(weight)), Double::sum);
+                    }
+                });
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(topOwners)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        try {
+            worker.execute(() -> deliver(pending));
+        } catch (RejectedExecutionException e) {
+            log.warn("Matching queue is full, request {} is not routed to owner inboxes", pending.requestId);
+        }
+    }
+
+    private void deliver(Pending pending) {
+        List<Long> owners = match(pending.requesterId, pending.description);
+        if (owners.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long ownerId : owners) {
+                Deque<Long> inbox = inboxes.computeIfAbsent(ownerId, id -> new ArrayDeque<>());
+                if (inbox.contains(pending.requestId)) {
+                    continue;
+                }
+                inbox.addFirst(pending.requestId);
+                if (inbox.size() > inboxSize) {
+                    inbox.removeLast();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear(long itemId) {
+        Terms terms = termsByItem.remove(itemId);
+        if (terms == null) {
+            return;
+        }
+        itemCountByOwner.computeIfPresent(terms.ownerId, (id, count) -> count == 1 ? null : count - 1);
+        terms.weights.forEach((term, weight) -> postings.computeIfPresent(term, (t, owners) -> {
+            owners.computeIfPresent(terms.ownerId, (id, total) -> total.equals(weight) ? null : total - weight);
+            return owners.isEmpty() ? null : owners;
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private static class Terms {
+        private final long ownerId;
+        private final Map<String, Integer> weights = new HashMap<>();
+
+        Terms(long ownerId, String name, String description) {
+            this.ownerId = ownerId;
+            ItemSearchIndex.tokenize(name).forEach(term -> weights.merge(term, NAME_BOOST, Integer::sum));
+            ItemSearchIndex.tokenize(description).forEach(term -> weights.merge(term, 1, Integer::sum));
+        }
+    }
+
+    private static class Pending {
+        private final long requestId;
+        private final long requesterId;
+        private final String description;
+
+        Pending(long requestId, long requesterId, String description) {
+            this.requestId = requestId;
+            this.requesterId = requesterId;
+            this.description = description;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.request.service;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
 
 import java.util.List;
 
@@ -11,7 +12,13 @@ public interface ItemRequestService {
 
     ItemRequestDto getById(Long userId, Long id) throws Exception;
 
+    String getETag(Long userId, Long id);
+
     List<ItemRequestDto> getAllOwnRequests(Long userId) throws UserNotFoundException;
 
     List<ItemRequestDto> getAllUserRequests(Long userId, Integer from, Integer size) throws UserNotFoundException, ValidationException;
+
+    ItemRequestPageDto getAllUserRequestsAfter(Long userId, String cursor, Integer size) throws UserNotFoundException, ValidationException;
+
+    List<ItemRequestDto> getInbox(Long userId) throws UserNotFoundException;
 }
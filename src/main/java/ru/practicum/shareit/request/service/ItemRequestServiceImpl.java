@@ -2,96 +2,160 @@ package ru.practicum.shareit.request.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.TimeIdCursor;
+import ru.practicum.shareit.WeakETag;
 import ru.practicum.shareit.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemFacetIndex;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityCache;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class ItemRequestServiceImpl implements ItemRequestService {
-    private UserRepository userRepository;
+    private UserIdentityCache userIdentityCache;
     private ItemRequestRepository itemRequestRepository;
     private ItemRepository itemRepository;
+    private ItemRequestFeed itemRequestFeed;
+    private ItemRequestMatcher itemRequestMatcher;
+    private ItemFacetIndex itemFacetIndex;
 
     @Autowired
-    public ItemRequestServiceImpl(UserRepository userRepository, ItemRequestRepository itemRequestRepository, ItemRepository itemRepository) {
-        this.userRepository = userRepository;
+    public ItemRequestServiceImpl(UserIdentityCache userIdentityCache, ItemRequestRepository itemRequestRepository, ItemRepository itemRepository,
+                                  ItemRequestFeed itemRequestFeed, ItemRequestMatcher itemRequestMatcher, ItemFacetIndex itemFacetIndex) {
+        this.userIdentityCache = userIdentityCache;
         this.itemRequestRepository = itemRequestRepository;
         this.itemRepository = itemRepository;
+        this.itemRequestFeed = itemRequestFeed;
+        this.itemRequestMatcher = itemRequestMatcher;
+        this.itemFacetIndex = itemFacetIndex;
     }
 
     @Override
     public ItemRequestDto create(ItemRequestDto requestDto, Long userId) throws Exception {
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        User user = userIdentityCache.require(userId);
         validate(requestDto);
         ItemRequest itemRequest = new ItemRequest();
         itemRequest.setRequester(user);
         itemRequest.setDescription(requestDto.getDescription());
         ItemRequest savedRequest = itemRequestRepository.save(itemRequest);
         savedRequest.setItems(itemRepository.findAllByRequestId(savedRequest.getId()));
-        return ItemRequestMapper.toItemRequestDto(savedRequest);
+        itemRequestFeed.add(savedRequest);
+        itemRequestMatcher.submit(savedRequest);
+        return ItemRequestMapper.toItemRequestDto(savedRequest, itemFacetIndex::tagsOf);
     }
 
     @Override
     public ItemRequestDto getById(Long userId, Long id) throws Exception {
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        userIdentityCache.require(userId);
         ItemRequest itemRequest = itemRequestRepository.findById(id).orElseThrow(() -> new ItemRequestNotFoundException("Item request not found"));
         List<Item> items = itemRepository.findAllByRequestId(itemRequest.getId());
         itemRequest.setItems(items);
-        return ItemRequestMapper.toItemRequestDto(itemRequest);
+        return ItemRequestMapper.toItemRequestDto(itemRequest, itemFacetIndex::tagsOf);
+    }
+
+    @Override
+    public String getETag(Long userId, Long id) {
+        if (!userIdentityCache.exists(userId)) {
+            return null;
+        }
+        return itemRequestRepository.findVersionById(id)
+                .map(row -> WeakETag.of(id, row.getVersion(), row.getItemCount(), row.getItemVersions(), row.getLastItemId()))
+                .orElse(null);
     }
 
     @Override
     public List<ItemRequestDto> getAllOwnRequests(Long userId) throws UserNotFoundException {
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        userIdentityCache.require(userId);
         List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(userId);
-        List<Item> itemsByRequestIds = itemRepository.findAllByRequestIdIn(itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList()));
-        Map<Long, List<Item>> mappedItemsByRequestIds = itemsByRequestIds.stream().collect(Collectors.groupingBy(item -> item.getRequest().getId()));
-        itemRequests.forEach(itemRequest -> {
-            List<Item> items = mappedItemsByRequestIds.get(itemRequest.getId());
-            itemRequest.setItems(items == null ? new ArrayList<>() : items);
-        });
-        return itemRequests.stream().map(ItemRequestMapper::toItemRequestDto).collect(Collectors.toList());
+        return withItems(itemRequests);
     }
 
     @Override
     public List<ItemRequestDto> getAllUserRequests(Long userId, Integer from, Integer size) throws UserNotFoundException, ValidationException {
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        userIdentityCache.require(userId);
         if (size != null && size == 0) {
             throw new ValidationException("Error");
         }
         if (size != null && from != null) {
             int page = from / size;
+            TimeIdCursor first = TimeIdCursor.first();
+            List<ItemRequestDto> cached = itemRequestFeed.page(userId, first.getTime(), first.getId(), page * size, size);
+            if (cached != null) {
+                return cached;
+            }
 
-            PageRequest pageRequest = PageRequest.of(page, size, Sort.by("created").descending());
+            PageRequest pageRequest = PageRequest.of(page, size);
 
-            List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequesterIdNotOrderByCreatedDesc(userId, pageRequest).getContent();
-            List<Item> itemsByRequestIds = itemRepository.findAllByRequestIdIn(itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList()));
-            Map<Long, List<Item>> mappedItemsByRequestIds = itemsByRequestIds.stream().collect(Collectors.groupingBy(item -> item.getRequest().getId()));
-            itemRequests.forEach(itemRequest -> {
-                List<Item> items = mappedItemsByRequestIds.get(itemRequest.getId());
-                itemRequest.setItems(items == null ? new ArrayList<>() : items);
-            });
-            return itemRequests.stream().map(ItemRequestMapper::toItemRequestDto).collect(Collectors.toList());
+            List<ItemRequest> itemRequests = itemRequestRepository.findFeedPageBefore(userId, first.getTime(), first.getId(), pageRequest);
+            return withItems(itemRequests);
         } else {
             return new ArrayList<>();
         }
     }
 
+    @Override
+    public ItemRequestPageDto getAllUserRequestsAfter(Long userId, String cursor, Integer size) throws UserNotFoundException, ValidationException {
+        userIdentityCache.require(userId);
+        if (size == null || size < 1) {
+            throw new ValidationException("Error");
+        }
+        TimeIdCursor after = TimeIdCursor.decode(cursor);
+        List<ItemRequestDto> requests = itemRequestFeed.page(userId, after.getTime(), after.getId(), 0, size + 1);
+        if (requests == null) {
+            requests = withItems(itemRequestRepository.findFeedPageBefore(userId, after.getTime(), after.getId(),
+                    PageRequest.of(0, size + 1)));
+        }
+        boolean hasNext = requests.size() > size;
+        List<ItemRequestDto> content = hasNext ? requests.subList(0, size) : requests;
+        ItemRequestPageDto page = new ItemRequestPageDto();
+        page.setRequests(content);
+        if (hasNext) {
+            ItemRequestDto last = content.get(content.size() - 1);
+            page.setNextCursor(TimeIdCursor.encode(last.getCreated(), last.getId()));
+        }
+        return page;
+    }
+
+    @Override
+    public List<ItemRequestDto> getInbox(Long userId) throws UserNotFoundException {
+        userIdentityCache.require(userId);
+        List<Long> ids = itemRequestMatcher.inbox(userId);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ItemRequest> itemRequests = itemRequestRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(ItemRequest::getCreated).thenComparing(ItemRequest::getId).reversed())
+                .collect(Collectors.toList());
+        return withItems(itemRequests);
+    }
+
+    private List<ItemRequestDto> withItems(List<ItemRequest> itemRequests) {
+        List<Item> itemsByRequestIds = itemRepository.findAllByRequestIdIn(itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList()));
+        Map<Long, List<Item>> mappedItemsByRequestIds = itemsByRequestIds.stream().collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        itemRequests.forEach(itemRequest -> {
+            List<Item> items = mappedItemsByRequestIds.get(itemRequest.getId());
+            itemRequest.setItems(items == null ? new ArrayList<>() : items);
+        });
+        return itemRequests.stream()
+                .map(itemRequest -> ItemRequestMapper.toItemRequestDto(itemRequest, itemFacetIndex::tagsOf))
+                .collect(Collectors.toList());
+    }
+
     private void validate(ItemRequestDto itemRequestDto) throws ValidationException {
         if (itemRequestDto.getDescription() == null || itemRequestDto.getDescription().isBlank()) {
             throw new ValidationException("Description is null");
@@ -3,6 +3,7 @@ package ru.practicum.shareit.user;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserDtoShort;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserRow;
 
 public class UserMapper {
     public static UserDto toUserDto(User user) {
@@ -13,6 +14,14 @@ public class UserMapper {
         return userDto;
     }
 
+    public static UserDto toUserDto(UserRow row) {
+        UserDto userDto = new UserDto();
+        userDto.setId(row.getId());
+        userDto.setName(row.getName());
+        userDto.setEmail(row.getEmail());
+        return userDto;
+    }
+
     public static UserDtoShort toUserDtoShort(User user) {
         UserDtoShort userDtoShort = new UserDtoShort();
         userDtoShort.setId(user.getId());
@@ -1,16 +1,29 @@
 package ru.practicum.shareit.user.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.NextCursorHeader;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import java.util.List;
 
+import static ru.practicum.shareit.NdjsonStreamWriter.NDJSON;
+
 @RestController
 @RequestMapping(path = "/users")
+@Validated
 public class UserController {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     private UserService service;
 
     @Autowired
@@ -39,7 +52,16 @@ public class UserController {
     }
 
     @GetMapping
-    public List<UserDto> getAll() {
-        return service.getAll();
+    public ResponseEntity<List<UserDto>> getAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                                @Min(1) @Max(100) @RequestParam(value = "size", required = false) Integer size) throws Exception {
+        UserPageDto page = service.getAllAfter(cursor, size == null ? DEFAULT_PAGE_SIZE : size);
+        return NextCursorHeader.ok(page.getUsers(), page.getNextCursor());
+    }
+
+    @GetMapping(path = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(service.export());
     }
 }
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UserPageDto {
+    private List<UserDto> users;
+    private String nextCursor;
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.user.model;
+
+public interface UserRow {
+    Long getId();
+
+    String getName();
+
+    String getEmail();
+}
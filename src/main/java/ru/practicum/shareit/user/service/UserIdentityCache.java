@@ -0,0 +1,130 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class UserIdentityCache implements MeterBinder {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] ids;
+    private final User[] users;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long version;
+    private UserRepository userRepository;
+
+    @Autowired
+    public UserIdentityCache(UserRepository userRepository, @Value("${shareit.users.identity-cache.size:4096}") int size) {
+        this.userRepository = userRepository;
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.ids = new long[capacity];
+        this.users = new User[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(ids, EMPTY);
+    }
+
+    public User require(long userId) throws UserNotFoundException {
+        User user = find(userId);
+        if (user == null) {
+            throw new UserNotFoundException("User not found");
+        }
+        return user;
+    }
+
+    public boolean exists(long userId) {
+        return find(userId) != null;
+    }
+
+    public User find(long userId) {
+        long seenVersion;
+        synchronized (this) {
+            int slot = slotOf(userId);
+            if (ids[slot] == userId) {
+                hits.increment();
+                return copy(users[slot]);
+            }
+            misses.increment();
+            seenVersion = version;
+        }
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        User cached = copy(user);
+        synchronized (this) {
+            if (seenVersion == version) {
+                int slot = slotOf(userId);
+                if (ids[slot] != EMPTY && ids[slot] != userId) {
+                    evictions.increment();
+                }
+                ids[slot] = userId;
+                users[slot] = cached;
+            }
+        }
+        return copy(cached);
+    }
+
+    public synchronized void invalidate(long userId) {
+        version++;
+        int slot = slotOf(userId);
+        if (ids[slot] == userId) {
+            ids[slot] = EMPTY;
+            users[slot] = null;
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        Arrays.fill(ids, EMPTY);
+        Arrays.fill(users, null);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("users.identity.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("users.identity.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("users.identity.cache.removals", evictions, LongAdder::sum).tag("cause", "size").register(registry);
+        Gauge.builder("users.identity.cache.hit.ratio", this, UserIdentityCache::hitRatio).register(registry);
+    }
+
+    double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    int capacity() {
+        return ids.length;
+    }
+
+    private int slotOf(long userId) {
+        return (int) ((userId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+}
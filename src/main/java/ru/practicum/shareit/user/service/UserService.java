@@ -1,9 +1,10 @@
 package ru.practicum.shareit.user.service;
 
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
-
-import java.util.List;
+import ru.practicum.shareit.user.dto.UserPageDto;
 
 public interface UserService {
     UserDto create(UserDto userDto) throws Exception;
@@ -14,5 +15,7 @@ public interface UserService {
 
     UserDto getById(long id) throws Exception;
 
-    List<UserDto> getAll();
+    UserPageDto getAllAfter(String cursor, Integer size) throws ValidationException;
+
+    StreamingResponseBody export();
 }
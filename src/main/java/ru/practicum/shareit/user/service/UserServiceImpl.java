@@ -1,13 +1,19 @@
 package ru.practicum.shareit.user.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.IdCursor;
+import ru.practicum.shareit.NdjsonStreamWriter;
 import ru.practicum.shareit.exception.DuplicateValueException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserRow;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
@@ -16,10 +22,14 @@ import java.util.stream.Collectors;
 @Service
 public class UserServiceImpl implements UserService {
     private UserRepository userRepository;
+    private UserIdentityCache userIdentityCache;
+    private NdjsonStreamWriter ndjsonStreamWriter;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserIdentityCache userIdentityCache, NdjsonStreamWriter ndjsonStreamWriter) {
         this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.ndjsonStreamWriter = ndjsonStreamWriter;
     }
 
     @Override
@@ -42,6 +52,7 @@ public class UserServiceImpl implements UserService {
             userToUpdate.setEmail(userDto.getEmail());
         }
         User user = userRepository.save(userToUpdate);
+        userIdentityCache.invalidate(userId);
         return UserMapper.toUserDto(user);
     }
 
@@ -49,6 +60,7 @@ public class UserServiceImpl implements UserService {
     public UserDto delete(long id) throws Exception {
         User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException("User not found"));
         userRepository.deleteById(id);
+        userIdentityCache.invalidate(id);
         return UserMapper.toUserDto(user);
     }
 
@@ -59,8 +71,25 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserDto> getAll() {
-        return userRepository.findAll().stream().map(UserMapper::toUserDto).collect(Collectors.toList());
+    public UserPageDto getAllAfter(String cursor, Integer size) throws ValidationException {
+        if (size == null || size < 1) {
+            throw new ValidationException("Error");
+        }
+        long afterId = IdCursor.decode(cursor, 0);
+        List<UserRow> rows = userRepository.findPageAfter(afterId, PageRequest.of(0, size + 1));
+        boolean hasNext = rows.size() > size;
+        List<UserRow> content = hasNext ? rows.subList(0, size) : rows;
+        UserPageDto page = new UserPageDto();
+        page.setUsers(content.stream().map(UserMapper::toUserDto).collect(Collectors.toList()));
+        if (hasNext) {
+            page.setNextCursor(IdCursor.encode(content.get(content.size() - 1).getId()));
+        }
+        return page;
+    }
+
+    @Override
+    public StreamingResponseBody export() {
+        return out -> ndjsonStreamWriter.write(userRepository::streamAll, UserMapper::toUserDto, out);
     }
 
     private void validateUser(UserDto userDto) throws ValidationException, DuplicateValueException {
@@ -1,6 +1,12 @@
+create SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+create SEQUENCE IF NOT EXISTS item_requests_seq START WITH 1 INCREMENT BY 50;
+create SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+create SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+create SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+
 create TABLE IF NOT EXISTS users
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     email VARCHAR (512) NOT NULL,
     name VARCHAR (512) NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
@@ -8,7 +14,7 @@ create TABLE IF NOT EXISTS users
 
 create TABLE IF NOT EXISTS item_requests
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     description VARCHAR (1024) NOT NULL,
     requester_id BIGINT not null,
     created TIMESTAMP  not null,
@@ -17,7 +23,7 @@ create TABLE IF NOT EXISTS item_requests
 
 create TABLE IF NOT EXISTS items
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     description VARCHAR (1024) NOT NULL,
     name VARCHAR(512) NOT NULL,
     available BOOLEAN DEFAULT TRUE,
@@ -29,7 +35,7 @@ create TABLE IF NOT EXISTS items
 
 create TABLE IF NOT EXISTS bookings
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     booking_start TIMESTAMP NOT NULL,
     booking_end TIMESTAMP NOT NULL,
     booking_status VARCHAR(512) NOT NULL,
@@ -41,7 +47,7 @@ create TABLE IF NOT EXISTS bookings
 
 create TABLE IF NOT EXISTS comments
 (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     text VARCHAR (1024) NOT NULL,
     item BIGINT,
     author BIGINT,
@@ -0,0 +1,7 @@
+create INDEX idx_bookings_booker_start ON bookings (booker_id, booking_start);
+create INDEX idx_bookings_item_status_start ON bookings (item_id, booking_status, booking_start);
+create INDEX idx_bookings_status_end ON bookings (booking_status, booking_end);
+create INDEX idx_items_owner ON items (owner_id);
+create INDEX idx_items_request ON items (request_id);
+create INDEX idx_item_requests_requester_created ON item_requests (requester_id, created);
+create INDEX idx_comments_item ON comments (item);
@@ -0,0 +1 @@
+create INDEX idx_bookings_booker_item_status_start ON bookings (booker_id, item_id, booking_status, booking_start);
@@ -0,0 +1,8 @@
+create TABLE IF NOT EXISTS item_tags
+(
+    item_id BIGINT NOT NULL,
+    tag VARCHAR(64) NOT NULL,
+    CONSTRAINT pk_item_tag PRIMARY KEY (item_id, tag),
+    CONSTRAINT FK_ITEM_TAG_ITEM FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE);
+
+create INDEX idx_item_tags_tag ON item_tags (tag);
@@ -0,0 +1,2 @@
+drop INDEX IF EXISTS idx_comments_item;
+create INDEX idx_comments_item_id ON comments (item, id);
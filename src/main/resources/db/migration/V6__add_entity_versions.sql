@@ -0,0 +1,3 @@
+alter TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+alter TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+alter TABLE item_requests ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1 @@
+create INDEX idx_item_requests_created_id ON item_requests (created, id);
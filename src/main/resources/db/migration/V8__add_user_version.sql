@@ -0,0 +1 @@
+alter TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
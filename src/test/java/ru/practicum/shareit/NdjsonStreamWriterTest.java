@@ -0,0 +1,61 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonStreamWriterTest {
+    private final NdjsonStreamWriter writer = new NdjsonStreamWriter(new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    @Test
+    void writesOneValuePerLineAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = writer.write(() -> Stream.of(1, 2).onClose(() -> closed.set(true)),
+                id -> new TreeMap<>(Map.of("id", id, "created", LocalDateTime.of(2023, 4, 3, 16, 0))), out);
+        assertEquals(2, written);
+        assertEquals("{\"created\":\"2023-04-03T16:00:00\",\"id\":1}\n{\"created\":\"2023-04-03T16:00:00\",\"id\":2}\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void leavesTargetOpenAndClosesStreamOnFailure() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean targetClosed = new AtomicBoolean();
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                targetClosed.set(true);
+                super.close();
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> writer.write(() -> Stream.of(1).onClose(() -> closed.set(true)),
+                id -> {
+                    throw new IllegalStateException("boom");
+                }, out));
+        assertTrue(closed.get());
+        assertFalse(targetClosed.get());
+    }
+
+    @Test
+    void writesNothingForEmptyStream() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, writer.write(Stream::empty, id -> id, out));
+        assertEquals(0, out.size());
+    }
+}
@@ -0,0 +1,234 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.util.ClassUtils;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.booking.BookingState.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Sql("/data.sql")
+@Import(RepositoryQueryPlanTest.RecordingDataSourceConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class RepositoryQueryPlanTest extends BaseTest {
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\*\\s*PUBLIC\\.\\w+(\\.tableScan)?\\s*\\*/", Pattern.CASE_INSENSITIVE);
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 4, 3, 16, 0);
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RecordedStatement.STATEMENTS.clear();
+    }
+
+    @Test
+    void bookingRepositoryUsesIndexes() {
+        assertIndexed(() -> bookingRepository.findItemIdById(6L));
+        assertIndexed(() -> bookingRepository.findItemIdsByIdIn(List.of(6L, 8L)));
+        assertIndexed(() -> bookingRepository.existsByBookerIdAndItemIdAndStatusAndStartBefore(3L, 2L, APPROVED, NOW));
+        assertIndexed(() -> bookingRepository.findAllByStatusInAndEndAfter(List.of(APPROVED, WAITING), NOW));
+        assertIndexed(() -> bookingRepository.findBookerPageAfter(1L, List.of(values()), EARLIEST, LATEST, EARLIEST, LATEST,
+                LATEST, Long.MAX_VALUE, PageRequest.of(0, 2)));
+        assertIndexed(() -> bookingRepository.findOwnerPageAfter(4L, List.of(values()), EARLIEST, LATEST, EARLIEST, LATEST,
+                LATEST, Long.MAX_VALUE, PageRequest.of(0, 2)));
+        assertIndexed(() -> bookingRepository.findOwnedByIdInAndStatus(List.of(6L, 8L), 4L, WAITING));
+        assertIndexed(() -> bookingRepository.findTimelineByItemIdIn(List.of(1L, 2L), APPROVED, NOW));
+        assertIndexed(() -> bookingRepository.findVersionById(6L));
+        assertIndexed(() -> bookingRepository.streamBookerHistory(1L, List.of(values()), EARLIEST, LATEST, EARLIEST, LATEST).close());
+        assertIndexed(() -> bookingRepository.streamOwnerHistory(4L, List.of(values()), EARLIEST, LATEST, EARLIEST, LATEST).close());
+        assertIndexed(() -> bookingRepository.updateOwnedStatus(List.of(6L, 8L), 4L, WAITING, APPROVED));
+    }
+
+    @Test
+    void itemRepositoryUsesIndexes() {
+        assertIndexed(() -> itemRepository.findAllByOwnerId(4L, PageRequest.of(0, 2)));
+        assertIndexed(() -> itemRepository.existsByOwnerId(4L));
+        assertIndexed(() -> itemRepository.findOwnerCatalog(4L, NOW, 2, 0));
+        assertIndexed(() -> itemRepository.findAllByRequestId(1L));
+        assertIndexed(() -> itemRepository.findAllByRequestIdIn(List.of(1L, 2L)));
+        assertIndexed(() -> itemRepository.findSearchRowsAfter(0L, PageRequest.of(0, 2)));
+        assertIndexed(() -> itemRepository.findFacetRowsAfter(0L, PageRequest.of(0, 2)));
+        assertIndexed(() -> itemRepository.findVersionById(2L));
+        assertIndexed(() -> itemRepository.streamAllByOwnerId(4L).close());
+    }
+
+    @Test
+    void commentRepositoryUsesIndexes() {
+        assertIndexed(() -> commentRepository.countByItemIdIn(List.of(1L, 2L)));
+        assertIndexed(() -> commentRepository.findLatestByItemIdIn(List.of(1L, 2L), 3));
+        assertIndexed(() -> commentRepository.findItemPageBefore(1L, Long.MAX_VALUE, PageRequest.of(0, 2)));
+    }
+
+    @Test
+    void itemRequestRepositoryUsesIndexes() {
+        assertIndexed(() -> itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(1L));
+        assertIndexed(() -> itemRequestRepository.findVersionById(2L));
+        assertIndexed(() -> itemRequestRepository.findFeedPageBefore(1L, LATEST, Long.MAX_VALUE, PageRequest.of(0, 2)));
+        assertIndexed(() -> itemRequestRepository.findLatest(LATEST, PageRequest.of(0, 2)));
+        assertIndexed(() -> itemRequestRepository.findFeedPageBefore(1L, LATEST, Long.MAX_VALUE, PageRequest.of(1, 2)));
+    }
+
+    @Test
+    void userRepositoryUsesIndexes() {
+        assertIndexed(() -> userRepository.findPageAfter(0L, PageRequest.of(0, 2)));
+    }
+
+    @Test
+    void wholeTableQueriesAreKnownFullScans() {
+        assertFullScan(() -> bookingRepository.countBookingsByItem());
+        assertFullScan(() -> itemRepository.findAllTags());
+        assertFullScan(() -> userRepository.streamAll().close());
+    }
+
+    private void assertFullScan(Runnable repositoryCall) {
+        RecordedStatement.STATEMENTS.clear();
+        repositoryCall.run();
+        List<RecordedStatement> statements = new ArrayList<>(RecordedStatement.STATEMENTS);
+        assertFalse(statements.isEmpty(), "No statement was executed");
+        String plans = statements.stream().map(this::explain).collect(Collectors.joining());
+        assertTrue(FULL_SCAN.matcher(plans).find(), () -> "Expected a full scan, move the call to an indexed check:\n" + plans);
+    }
+
+    private void assertIndexed(Runnable repositoryCall) {
+        RecordedStatement.STATEMENTS.clear();
+        repositoryCall.run();
+        List<RecordedStatement> statements = new ArrayList<>(RecordedStatement.STATEMENTS);
+        assertFalse(statements.isEmpty(), "No statement was executed");
+        for (RecordedStatement statement : statements) {
+            String plan = explain(statement);
+            assertFalse(FULL_SCAN.matcher(plan).find(), () -> "Full scan in plan:\n" + plan);
+        }
+    }
+
+    private String explain(RecordedStatement recorded) {
+        return jdbcTemplate.query("EXPLAIN " + recorded.sql, statement -> {
+            for (Map.Entry<Integer, Object> parameter : recorded.parameters.entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+        }, resultSet -> {
+            StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+            return plan.toString();
+        });
+    }
+
+    @TestConfiguration
+    static class RecordingDataSourceConfiguration {
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? RecordedStatement.recording(bean) : bean;
+                }
+            };
+        }
+    }
+
+    static class RecordedStatement {
+        static final List<RecordedStatement> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+
+        RecordedStatement(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = new TreeMap<>(parameters);
+        }
+
+        static Object recording(Object target) {
+            return proxy(target, (method, args, result) -> {
+                if (result instanceof Connection) {
+                    return recording(result);
+                }
+                if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                    return binding(result, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static Object binding(Object statement, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(statement, (method, args, result) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                } else if (name.startsWith("execute") && !sql.startsWith("EXPLAIN ")) {
+                    STATEMENTS.add(new RecordedStatement(sql, parameters));
+                }
+                return result;
+            });
+        }
+
+        private static Object proxy(Object target, ResultHandler handler) {
+            return Proxy.newProxyInstance(target.getClass().getClassLoader(), ClassUtils.getAllInterfaces(target),
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("equals") && args != null && args.length == 1) {
+                            return proxy == args[0];
+                        }
+                        if (method.getName().equals("hashCode") && args == null) {
+                            return System.identityHashCode(proxy);
+                        }
+                        try {
+                            return handler.handle(method, args, method.invoke(target, args));
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+
+        private interface ResultHandler {
+            Object handle(Method method, Object[] args, Object result);
+        }
+    }
+}
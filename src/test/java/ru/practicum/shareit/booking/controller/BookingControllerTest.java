@@ -8,20 +8,33 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.BaseTest;
 import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.exception.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -57,6 +70,84 @@ class BookingControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.itemId").value(17));
     }
 
+    @Test
+    void createBookingsHappyFlow() throws Exception {
+        when(service.createAll(anyList(), anyLong())).thenReturn(List.of(
+                buildBookingDto(43L, 17L, 38L,
+                        getDateFromString("2023-04-15 15:00:00"),
+                        getDateFromString("2023-04-17 12:00:00"),
+                        BookingState.WAITING),
+                buildBookingDto(44L, 18L, 38L,
+                        getDateFromString("2023-04-15 15:00:00"),
+                        getDateFromString("2023-04-17 12:00:00"),
+                        BookingState.WAITING)));
+        mockMvc.perform(post("/bookings/batch")
+                        .header(xShareUserId, 38)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(new BookingDto(), new BookingDto()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(43))
+                .andExpect(jsonPath("$[1].id").value(44))
+                .andExpect(jsonPath("$[1].itemId").value(18));
+    }
+
+    @Test
+    void decideBookingsHappyFlow() throws Exception {
+        BookingDecisionDto decision = new BookingDecisionDto();
+        decision.setUpdated(List.of(6L, 9L));
+        decision.setSkipped(List.of(8L));
+        when(service.decideAll(anyList(), anyLong(), anyBoolean())).thenReturn(decision);
+        mockMvc.perform(patch("/bookings/batch")
+                        .header(xShareUserId, 4)
+                        .param("approved", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(6L, 8L, 9L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated[1]").value(9))
+                .andExpect(jsonPath("$.skipped[0]").value(8));
+        verify(service, times(1)).decideAll(List.of(6L, 8L, 9L), 4L, true);
+    }
+
+    @Test
+    void streamOwnerBookings() throws Exception {
+        when(service.subscribe(anyLong())).thenReturn(new SseEmitter());
+        mockMvc.perform(get("/bookings/owner/stream")
+                        .header(xShareUserId, 4)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+        verify(service, times(1)).subscribe(4L);
+    }
+
+    @Test
+    void exportBookings() throws Exception {
+        when(service.exportAll(4L, "PAST")).thenReturn(out -> out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8)));
+        MvcResult result = mockMvc.perform(get("/bookings/export")
+                        .header(xShareUserId, 4)
+                        .param("state", "PAST"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void exportOwnerBookingsUnauthorized() throws Exception {
+        when(service.exportItemsForUser(anyLong(), anyString())).thenThrow(new UnauthorizedException("Unauthorized"));
+        mockMvc.perform(get("/bookings/owner/export")
+                        .header(xShareUserId, 4))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void streamOwnerBookingsUserNotFound() throws Exception {
+        when(service.subscribe(anyLong())).thenThrow(new UserNotFoundException("User not found"));
+        mockMvc.perform(get("/bookings/owner/stream")
+                        .header(xShareUserId, 4))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void createBookingUserNotFound() throws Exception {
         when(service.create(any(), anyLong())).thenThrow(new UserNotFoundException("User not found"));
@@ -201,6 +292,18 @@ class BookingControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.error").value("Объект не найден"));
     }
 
+    @Test
+    void getByIdNotModified() throws Exception {
+        when(service.getETag(14L, 18L)).thenReturn("W/\"14-2-5\"");
+
+        mockMvc.perform(get("/bookings/14")
+                        .header(xShareUserId, 18L)
+                        .header("If-None-Match", "W/\"14-1-5\", W/\"14-2-5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"14-2-5\""));
+        verify(service, never()).getById(anyLong(), anyLong());
+    }
+
     @Test
     void getByIdHappyFlow() throws Exception {
         when(service.getById(anyLong(), anyLong())).thenReturn(buildBookingDto(
@@ -317,4 +420,62 @@ class BookingControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.error").value("Нет доступа"));
     }
 
+    @Test
+    void getAllBookingsLegacySizeIsNotCapped() throws Exception {
+        when(service.getAll(38L, "ALL", 0, 500)).thenReturn(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings")
+                        .header(xShareUserId, 38L)
+                        .param("from", "0")
+                        .param("size", "500"))
+                .andExpect(status().isOk());
+        verify(service, times(1)).getAll(38L, "ALL", 0, 500);
+    }
+
+    @Test
+    void getItemsByAllWithCursorSizeIsClamped() throws Exception {
+        BookingPageDto page = new BookingPageDto();
+        page.setBookings(List.of());
+        when(service.getItemsForUserAfter(anyLong(), anyString(), anyString(), anyInt())).thenReturn(page);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings/owner")
+                        .header(xShareUserId, 38L)
+                        .param("cursor", "")
+                        .param("size", "500"))
+                .andExpect(status().isOk());
+        verify(service, times(1)).getItemsForUserAfter(38L, "ALL", "", 100);
+    }
+
+    @Test
+    void getAllBookingsWithCursor() throws Exception {
+        BookingPageDto page = new BookingPageDto();
+        page.setBookings(List.of(buildBookingDto(43L, 17L, 38L,
+                getDateFromString("2023-04-15 15:00:00"),
+                getDateFromString("2023-04-17 12:00:00"),
+                BookingState.WAITING)));
+        page.setNextCursor("next-page");
+        when(service.getAllAfter(anyLong(), anyString(), anyString(), anyInt())).thenReturn(page);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings")
+                        .header(xShareUserId, 38L)
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next-page"))
+                .andExpect(jsonPath("$[0].id").value(43));
+    }
+
+    @Test
+    void getItemsByAllWithCursorLastPage() throws Exception {
+        BookingPageDto page = new BookingPageDto();
+        page.setBookings(List.of());
+        when(service.getItemsForUserAfter(anyLong(), anyString(), anyString(), anyInt())).thenReturn(page);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/bookings/owner")
+                        .header(xShareUserId, 38L)
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$").isEmpty());
+    }
 }
\ No newline at end of file
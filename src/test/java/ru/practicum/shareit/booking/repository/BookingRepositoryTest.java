@@ -4,16 +4,25 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import ru.practicum.shareit.BaseTest;
 import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingItemRef;
+import ru.practicum.shareit.booking.model.BookingVersionRow;
+import ru.practicum.shareit.booking.model.ItemBookingCount;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static ru.practicum.shareit.booking.BookingState.*;
@@ -25,150 +34,144 @@ import static ru.practicum.shareit.booking.BookingState.*;
 class BookingRepositoryTest extends BaseTest {
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @Test
-    void findAllByBookerId() {
-        List<Booking> bookings = bookingRepository.findAllByBookerId(3);
-        assertEquals(2, bookings.size());
-        assertArrayEquals(new long[]{4L, 7L}, new long[]{bookings.get(0).getId(), bookings.get(1).getId()});
-        List<Booking> emptyBookings = bookingRepository.findAllByBookerId(48);
-        assertTrue(emptyBookings.isEmpty());
-
+    void findAllByStatusInAndEndAfter() {
+        List<Booking> bookings = bookingRepository.findAllByStatusInAndEndAfter(List.of(APPROVED, WAITING),
+                getDateFromString("2023-04-03 16:00:00"));
+        assertEquals(3, bookings.size());
+        assertArrayEquals(new long[]{4L, 7L, 8L}, bookings.stream().mapToLong(Booking::getId).sorted().toArray());
     }
 
     @Test
-    void findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(1L, List.of(BookingState.WAITING),
-                getDateFromString("2023-04-03 15:35:40"),
-                getDateFromString("2023-04-03 16:24:40"),
-                PageRequest.of(0, 10)).getContent();
-        assertEquals(1, bookings.size());
-        assertEquals(8L, bookings.get(0).getId());
+    void findBookerPageAfter() {
+        List<BookingView> firstPage = bookingRepository.findBookerPageAfter(1L, List.of(BookingState.values()),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("9999-12-31 23:59:59"), Long.MAX_VALUE, PageRequest.of(0, 2));
+        assertArrayEquals(new long[]{2L, 8L}, firstPage.stream().mapToLong(BookingView::getId).toArray());
+
+        List<BookingView> secondPage = bookingRepository.findBookerPageAfter(1L, List.of(BookingState.values()),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                firstPage.get(1).getStart(), firstPage.get(1).getId(), PageRequest.of(0, 10));
+        assertArrayEquals(new long[]{6L, 5L, 1L}, secondPage.stream().mapToLong(BookingView::getId).toArray());
     }
 
     @Test
-    void findAllByBookerIdAndEndBeforeAndStatus() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndBeforeAndStatus(1L,
-                getDateFromString("2023-04-03 16:44:40"),
-                APPROVED,
-                PageRequest.of(0, 10, Sort.by("start"))).getContent();
-        assertEquals(1, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
+    void streamBookerHistory() {
+        try (Stream<BookingView> bookings = bookingRepository.streamBookerHistory(1L, List.of(BookingState.values()),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"))) {
+            assertArrayEquals(new long[]{2L, 8L, 6L, 5L, 1L}, bookings.mapToLong(BookingView::getId).toArray());
+        }
     }
 
     @Test
-    void findAllByBookerIdAndStatus() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatus(1L,
-                BookingState.WAITING,
-                PageRequest.of(0, 10,
-                        Sort.by("id").descending())).getContent();
-        assertEquals(2, bookings.size());
-        assertEquals(8, bookings.get(0).getId());
-        assertEquals(6, bookings.get(1).getId());
+    void findOwnerPageAfter() {
+        List<BookingView> bookings = bookingRepository.findOwnerPageAfter(4L, List.of(APPROVED),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("2023-04-03 16:34:34"), 4L, PageRequest.of(0, 10));
+        assertArrayEquals(new long[]{1L}, bookings.stream().mapToLong(BookingView::getId).toArray());
     }
 
     @Test
-    void findAllByBookerIdAndStatusInAndStartAfter() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatusInAndStartAfter(3L,
-                List.of(APPROVED, BookingState.WAITING),
-                getDateFromString("2023-04-10 13:44:40"),
-                PageRequest.of(0, 10)).getContent();
+    void findOwnedByIdInAndStatus() {
+        List<BookingItemRef> bookings = bookingRepository.findOwnedByIdInAndStatus(List.of(1L, 6L, 8L), 4L, WAITING);
         assertEquals(1, bookings.size());
-        assertEquals(7, bookings.get(0).getId());
+        assertEquals(6L, bookings.get(0).getId());
+        assertEquals(2L, bookings.get(0).getItemId());
     }
 
     @Test
-    void findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter() {
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(4L, List.of(APPROVED, WAITING),
-                getDateFromString("2023-04-03 17:00:00"),
-                getDateFromString("2023-04-03 17:00:00"),
-                PageRequest.of(0, 10)).getContent();
-        assertEquals(1, bookings.size());
-        assertEquals(4, bookings.get(0).getId());
+    void findTimelineByItemIdIn() {
+        List<BookingItemRef> bookings = bookingRepository.findTimelineByItemIdIn(List.of(1L, 2L, 3L), APPROVED, getDateFromString("2023-04-10 00:00:00"));
+        assertEquals(Set.of(4L, 7L), bookings.stream().map(BookingItemRef::getId).collect(Collectors.toSet()));
+        BookingItemRef last = bookings.stream().filter(booking -> booking.getId() == 4L).findFirst().orElseThrow();
+        assertEquals(2L, last.getItemId());
+        assertEquals(3L, last.getBookerId());
+        assertEquals(getDateFromString("2023-04-03 17:34:34"), last.getEnd());
     }
 
     @Test
-    void findAllByItemOwnerIdAndEndBeforeAndStatus() {
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndEndBeforeAndStatus(4L,
-                getDateFromString("2023-04-03 16:30:00"),
-                APPROVED, PageRequest.of(0, 10)).getContent();
-        assertEquals(1, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
+    void countBookingsByItem() {
+        Map<Long, Long> counts = bookingRepository.countBookingsByItem().stream()
+                .collect(Collectors.toMap(ItemBookingCount::getItemId, ItemBookingCount::getTotal));
+        assertEquals(Map.of(1L, 2L, 2L, 4L, 3L, 1L, 4L, 1L), counts);
     }
 
     @Test
-    void findAllByItemOwnerIdAndStatus() {
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndStatus(4L,
-                APPROVED, PageRequest.of(0, 10, Sort.by("start"))).getContent();
-        assertEquals(2, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
-        assertEquals(4, bookings.get(1).getId());
+    void updateOwnedStatus() {
+        assertEquals(1, bookingRepository.updateOwnedStatus(List.of(1L, 6L, 8L), 4L, WAITING, REJECTED));
+        assertEquals(0, bookingRepository.updateOwnedStatus(List.of(6L), 4L, WAITING, REJECTED));
+        assertEquals(REJECTED, bookingRepository.findById(6L).orElseThrow().getStatus());
+        assertEquals(WAITING, bookingRepository.findById(8L).orElseThrow().getStatus());
+        assertEquals(APPROVED, bookingRepository.findById(1L).orElseThrow().getStatus());
+        assertEquals(1L, bookingRepository.findById(6L).orElseThrow().getVersion());
+        assertEquals(0L, bookingRepository.findById(8L).orElseThrow().getVersion());
     }
 
     @Test
-    void findAllByItemOwnerIdAndStatusInAndStartAfter() {
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerIdAndStatusInAndStartAfter(4L,
-                List.of(APPROVED, REJECTED),
-                getDateFromString("2023-04-03 15:30:00"), PageRequest.of(0, 10, Sort.by("start"))).getContent();
-        assertEquals(3, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
-        assertEquals(5, bookings.get(1).getId());
-        assertEquals(4, bookings.get(2).getId());
+    void findVersionById() {
+        BookingVersionRow row = bookingRepository.findVersionById(6L).orElseThrow();
+        assertEquals(0L, row.getVersion());
+        assertEquals(0L, row.getItemVersion());
+        assertEquals(0L, row.getBookerVersion());
+        assertEquals(1L, row.getBookerId());
+        assertEquals(4L, row.getOwnerId());
+        assertTrue(bookingRepository.findVersionById(99L).isEmpty());
     }
 
     @Test
-    void findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc() {
-        List<Booking> bookings = bookingRepository.findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc(List.of(2L, 1L),
-                APPROVED,
-                getDateFromString("2023-04-03 16:30:00"));
-        assertEquals(1, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
+    void findVersionByIdChangesWhenBookerIsRenamed() {
+        User booker = userRepository.findById(1L).orElseThrow();
+        booker.setName("renamed");
+        userRepository.saveAndFlush(booker);
+        assertEquals(1L, bookingRepository.findVersionById(6L).orElseThrow().getBookerVersion());
     }
 
     @Test
-    void findAllByItemIdInAndStatusAndStartAfterOrderByStart() {
-        List<Booking> bookings = bookingRepository.findAllByItemIdInAndStatusAndStartAfterOrderByStart(List.of(2L, 1L),
-                APPROVED,
-                getDateFromString("2023-04-03 16:30:00"));
+    void findBookerPageAfterSelectsViewFields() {
+        List<BookingView> bookings = bookingRepository.findBookerPageAfter(3L, List.of(APPROVED),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("1970-01-01 00:00:00"), getDateFromString("9999-12-31 23:59:59"),
+                getDateFromString("9999-12-31 23:59:59"), Long.MAX_VALUE, PageRequest.of(0, 10));
         assertEquals(2, bookings.size());
-        assertEquals(4, bookings.get(0).getId());
-        assertEquals(7, bookings.get(1).getId());
+        BookingView booking = bookings.get(0);
+        assertEquals(7L, booking.getId());
+        assertEquals(getDateFromString("2023-04-13 15:34:40"), booking.getStart());
+        assertEquals(getDateFromString("2023-04-14 15:34:40"), booking.getEnd());
+        assertEquals(APPROVED, booking.getStatus());
+        assertEquals(1L, booking.getItemId());
+        assertEquals("Аккумуляторная дрель", booking.getItemName());
+        assertEquals(3L, booking.getBookerId());
+        assertEquals("other", booking.getBookerName());
     }
 
     @Test
-    void findAllByItemOwnerId() {
-        List<Booking> bookings = bookingRepository.findAllByItemOwnerId(4L, PageRequest.of(0, 10, Sort.by("start"))).getContent();
-        assertEquals(5, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
-        assertEquals(5, bookings.get(1).getId());
-        assertEquals(6, bookings.get(2).getId());
-        assertEquals(4, bookings.get(3).getId());
-        assertEquals(2, bookings.get(4).getId());
+    void existsByBookerIdAndItemIdAndStatusAndStartBefore() {
+        assertTrue(bookingRepository.existsByBookerIdAndItemIdAndStatusAndStartBefore(3L, 2L, APPROVED,
+                getDateFromString("2023-04-03 17:00:00")));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndStatusAndStartBefore(3L, 2L, APPROVED,
+                getDateFromString("2023-04-03 16:00:00")));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndStatusAndStartBefore(1L, 4L, APPROVED,
+                getDateFromString("2023-05-01 00:00:00")));
     }
 
     @Test
-    void findAllByItemIdInAndStatusAndEndBeforeOrStartBeforeAndEndAfter() {
-        List<Booking> bookings = bookingRepository.findAllByItemIdInAndStatusAndEndBeforeOrStartBeforeAndEndAfter(List.of(2L, 1L, 4L),
-                APPROVED,
-                getDateFromString("2023-04-03 15:45:00"),
-                getDateFromString("2023-04-03 16:37:00"),
-                getDateFromString("2023-04-03 16:40:00"));
-        assertEquals(3, bookings.size());
-        assertEquals(1, bookings.get(0).getId());
-        assertEquals(4, bookings.get(1).getId());
-        assertEquals(5, bookings.get(2).getId());
+    void findItemIdById() {
+        assertEquals(4L, bookingRepository.findItemIdById(8L).orElseThrow());
+        assertTrue(bookingRepository.findItemIdById(48L).isEmpty());
     }
 
     @Test
-    void findAllByItemIdInAndStatusAndStartAfter() {
-        List<Booking> bookings = bookingRepository.findAllByItemIdInAndStatusAndStartAfter(List.of(2L, 1L, 4L),
-                APPROVED,
-                getDateFromString("2023-04-03 15:45:00"));
-        assertEquals(2, bookings.size());
-        assertEquals(7, bookings.get(0).getId());
-        assertEquals(4, bookings.get(1).getId());
+    void findItemIdsByIdIn() {
+        assertEquals(Set.of(2L, 4L), Set.copyOf(bookingRepository.findItemIdsByIdIn(List.of(6L, 8L, 48L))));
     }
 
-}
\ No newline at end of file
+}
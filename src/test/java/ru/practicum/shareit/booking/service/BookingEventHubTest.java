@@ -0,0 +1,161 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.booking.BookingState.WAITING;
+
+class BookingEventHubTest extends BaseTest {
+
+    private ExecutorService senders;
+    private BookingEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        senders = Executors.newFixedThreadPool(2);
+        hub = new BookingEventHub(senders, 2);
+    }
+
+    @Test
+    void publishReachesOnlyOwnerStreams() throws Exception {
+        RecordingEmitter ownerStream = new RecordingEmitter(false);
+        RecordingEmitter otherStream = new RecordingEmitter(false);
+        hub.register(4L, ownerStream);
+        hub.register(5L, otherStream);
+
+        hub.publish(4L, BookingEventHub.BOOKING_CREATED, buildBookingDto(7L, 2L, 3L, null, null, WAITING));
+        awaitDispatch();
+
+        assertEquals(1, ownerStream.events.size());
+        assertTrue(ownerStream.events.get(0).contains("event:booking-created"));
+        assertTrue(ownerStream.events.get(0).contains("id:7"));
+        assertTrue(otherStream.events.isEmpty());
+    }
+
+    @Test
+    void failedStreamIsDropped() throws Exception {
+        RecordingEmitter brokenStream = new RecordingEmitter(true);
+        hub.register(4L, brokenStream);
+
+        hub.publish(4L, BookingEventHub.BOOKING_CREATED, buildBookingDto(7L, 2L, 3L, null, null, WAITING));
+        hub.publish(4L, BookingEventHub.BOOKING_UPDATED, buildBookingDto(7L, 2L, 3L, null, null, WAITING));
+        awaitDispatch();
+
+        assertEquals(1, brokenStream.attempts);
+    }
+
+    @Test
+    void slowStreamDoesNotDelayOthers() throws Exception {
+        BlockingEmitter slowStream = new BlockingEmitter();
+        RecordingEmitter fastStream = new RecordingEmitter(false);
+        hub.register(4L, slowStream);
+        hub.register(5L, fastStream);
+
+        hub.publish(4L, BookingEventHub.BOOKING_CREATED, buildBookingDto(7L, 2L, 3L, null, null, WAITING));
+        assertTrue(slowStream.sending.await(5, TimeUnit.SECONDS));
+        hub.publish(5L, BookingEventHub.BOOKING_CREATED, buildBookingDto(8L, 2L, 3L, null, null, WAITING));
+        assertTrue(fastStream.received.await(5, TimeUnit.SECONDS));
+
+        slowStream.release.countDown();
+        awaitDispatch();
+    }
+
+    @Test
+    void overflowingStreamIsClosed() throws Exception {
+        BlockingEmitter slowStream = new BlockingEmitter();
+        hub.register(4L, slowStream);
+
+        hub.publish(4L, BookingEventHub.BOOKING_CREATED, buildBookingDto(7L, 2L, 3L, null, null, WAITING));
+        assertTrue(slowStream.sending.await(5, TimeUnit.SECONDS));
+        for (long id = 8; id <= 10; id++) {
+            hub.publish(4L, BookingEventHub.BOOKING_CREATED, buildBookingDto(id, 2L, 3L, null, null, WAITING));
+        }
+        slowStream.release.countDown();
+        awaitDispatch();
+
+        assertEquals(1, slowStream.attempts);
+        assertTrue(slowStream.completed);
+    }
+
+    @Test
+    void heartbeatSendsComment() throws Exception {
+        RecordingEmitter stream = new RecordingEmitter(false);
+        hub.register(4L, stream);
+
+        hub.heartbeat();
+        awaitDispatch();
+
+        assertEquals(List.of(":ping\n\n"), stream.events);
+    }
+
+    @Test
+    void publishWithoutSubscribersDoesNothing() throws Exception {
+        hub.publish(4L, BookingEventHub.BOOKING_CREATED, new BookingDto());
+        awaitDispatch();
+    }
+
+    private void awaitDispatch() throws InterruptedException {
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received = new CountDownLatch(1);
+        private final boolean broken;
+        private int attempts;
+
+        RecordingEmitter(boolean broken) {
+            this.broken = broken;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            attempts++;
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            events.add(builder.build().stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining()));
+            received.countDown();
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile int attempts;
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            attempts++;
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static ru.practicum.shareit.booking.BookingState.WAITING;
+
+class BookingIntervalIndexTest extends BaseTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        User owner = buildUser(1L, "owner@mail.com", "owner");
+        Item item = buildItem(2L, "item", "description", true, owner, null);
+        when(bookingRepository.findAllByStatusInAndEndAfter(anyList(), any())).thenReturn(List.of(
+                buildBooking(10L, item, owner, NOW.plusDays(1), NOW.plusDays(3), WAITING),
+                buildBooking(11L, item, owner, NOW.plusDays(5), NOW.plusDays(6), WAITING)));
+        index = new BookingIntervalIndex(bookingRepository);
+        index.warmUp();
+    }
+
+    @Test
+    void reserveOverlapping() {
+        assertThrows(ItemNotAvailableException.class, () -> index.reserve(2L, NOW.plusDays(2), NOW.plusDays(4)));
+        assertThrows(ItemNotAvailableException.class, () -> index.reserve(2L, NOW.plusHours(1), NOW.plusDays(7)));
+        assertThrows(ItemNotAvailableException.class, () -> index.reserve(2L, NOW.plusDays(5).plusHours(1), NOW.plusDays(5).plusHours(2)));
+    }
+
+    @Test
+    void reserveAdjacentAndOtherItem() {
+        assertDoesNotThrow(() -> index.reserve(2L, NOW.plusDays(3), NOW.plusDays(5)));
+        assertDoesNotThrow(() -> index.reserve(3L, NOW.plusDays(2), NOW.plusDays(4)));
+    }
+
+    @Test
+    void reserveAfterRelease() throws Exception {
+        long reservationId = index.reserve(2L, NOW.plusDays(8), NOW.plusDays(9));
+        index.confirm(2L, reservationId, 12L);
+        assertThrows(ItemNotAvailableException.class, () -> index.reserve(2L, NOW.plusDays(8), NOW.plusDays(9)));
+        index.release(2L, 12L);
+        assertDoesNotThrow(() -> index.reserve(2L, NOW.plusDays(8), NOW.plusDays(9)));
+    }
+
+    @Test
+    void removeItemDropsAllIntervals() {
+        index.removeItem(2L);
+        assertFalse(index.tracks(2L));
+        assertEquals(List.of(), index.busy(2L, NOW, NOW.plusDays(10)));
+        assertDoesNotThrow(() -> index.reserve(2L, NOW.plusDays(2), NOW.plusDays(4)));
+    }
+
+    @Test
+    void placeMovesOwnInterval() throws Exception {
+        index.place(2L, 10L, NOW.plusDays(2), NOW.plusDays(4));
+        assertDoesNotThrow(() -> index.reserve(2L, NOW.plusDays(1), NOW.plusDays(2)));
+        assertThrows(ItemNotAvailableException.class, () -> index.place(2L, 10L, NOW.plusDays(4), NOW.plusDays(6)));
+        assertThrows(ItemNotAvailableException.class, () -> index.reserve(2L, NOW.plusDays(3), NOW.plusDays(4)));
+    }
+
+    @Test
+    void restoreUndoesPlace() throws Exception {
+        index.place(2L, 10L, NOW.plusDays(7), NOW.plusDays(8));
+        index.restore(2L, 10L, NOW.plusDays(1), NOW.plusDays(3));
+        assertDoesNotThrow(() -> index.reserve(2L, NOW.plusDays(7), NOW.plusDays(8)));
+        assertThrows(ItemNotAvailableException.class, () -> index.reserve(2L, NOW.plusDays(2), NOW.plusDays(4)));
+    }
+
+    @Test
+    void busyIsClippedToRange() {
+        List<TimeSlotDto> busy = index.busy(2L, NOW.plusDays(2), NOW.plusDays(10));
+        assertEquals(List.of(new TimeSlotDto(truncate(NOW.plusDays(2)), truncate(NOW.plusDays(3))),
+                new TimeSlotDto(truncate(NOW.plusDays(5)), truncate(NOW.plusDays(6)))), busy);
+        assertEquals(List.of(), index.busy(3L, NOW, NOW.plusDays(10)));
+    }
+
+    @Test
+    void nextFreeSkipsShortGaps() {
+        assertEquals(truncate(NOW), index.nextFree(2L, NOW, Duration.ofHours(12)));
+        assertEquals(truncate(NOW.plusDays(3)), index.nextFree(2L, NOW, Duration.ofDays(2)));
+        assertEquals(truncate(NOW.plusDays(6)), index.nextFree(2L, NOW, Duration.ofDays(3)));
+    }
+
+    private static LocalDateTime truncate(LocalDateTime dateTime) {
+        return BookingIntervalIndex.toDateTime(BookingIntervalIndex.toMillis(dateTime));
+    }
+}
@@ -1,52 +1,93 @@
 package ru.practicum.shareit.booking.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.NdjsonStreamWriter;
+import ru.practicum.shareit.TimeIdCursor;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingItemRef;
+import ru.practicum.shareit.booking.model.BookingVersionRow;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemNameSuggester;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityCache;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static ru.practicum.shareit.booking.BookingState.APPROVED;
+import static ru.practicum.shareit.booking.BookingState.REJECTED;
 import static ru.practicum.shareit.booking.BookingState.WAITING;
 
 @AutoConfigureMockMvc
-@WebMvcTest({BookingServiceImpl.class, BookingRepository.class, UserRepository.class, ItemRepository.class})
+@WebMvcTest({BookingServiceImpl.class, BookingRepository.class, UserRepository.class, ItemRepository.class, BookingIntervalIndex.class,
+        CommentEligibility.class, BookingEventHub.class, ItemWriteLanes.class, BookingTimelineCache.class,
+        ItemNameSuggester.class, NdjsonStreamWriter.class, UserIdentityCache.class, BookingBatchWriter.class})
 class BookingServiceImplTest extends BaseTest {
 
     @Autowired
     private BookingServiceImpl service;
+    @Autowired
+    private UserIdentityCache userIdentityCache;
     @MockBean
     private UserRepository userRepository;
     @MockBean
     private ItemRepository itemRepository;
     @MockBean
     BookingRepository bookingRepository;
+    @MockBean
+    private BookingIntervalIndex bookingIntervalIndex;
+    @MockBean
+    private CommentEligibility commentEligibility;
+    @MockBean
+    private BookingEventHub bookingEventHub;
+    @MockBean
+    private BookingTimelineCache bookingTimelineCache;
+    @MockBean
+    private ItemNameSuggester itemNameSuggester;
 
     private static final LocalDateTime NOW = LocalDateTime.now();
 
+    @AfterEach
+    void clearIdentityCache() {
+        userIdentityCache.clear();
+    }
+
     @Test
     void create() throws Exception {
         User owner = buildUser(4L, "mail@mail.com", "user");
@@ -63,6 +104,8 @@ class BookingServiceImplTest extends BaseTest {
         assertEquals(WAITING, bookingDto.getStatus());
         assertEquals(7L, bookingDto.getBookerId());
         assertEquals(2L, bookingDto.getItemId());
+        verify(bookingEventHub, times(1)).publish(4L, BookingEventHub.BOOKING_CREATED, bookingDto);
+        verify(itemNameSuggester, times(1)).recordBooking(2L);
     }
 
     @ParameterizedTest
@@ -110,6 +153,134 @@ class BookingServiceImplTest extends BaseTest {
 
     }
 
+    @Test
+    void createItemAlreadyBooked() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        User booker = buildUser(7L, "mail@mail.com", "user");
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(buildItem(2L, "item", "description", true, owner, null)));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(bookingIntervalIndex.reserve(anyLong(), any(), any())).thenThrow(new ItemNotAvailableException("Item is already booked for these dates"));
+        assertThrows(ItemNotAvailableException.class, () -> service.create(buildBookingDto(null, 2L, null, NOW.plusDays(1), NOW.plusDays(2), null), 7L));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void createAll() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        User booker = buildUser(7L, "mail7@mail.com", "user");
+        Item first = buildItem(2L, "item", "description", true, owner, null);
+        Item second = buildItem(3L, "item", "description", true, owner, null);
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(first, second));
+        when(bookingRepository.saveAllAndFlush(anyList())).thenReturn(List.of(
+                buildBooking(5L, first, booker, NOW.plusDays(1), NOW.plusDays(2), WAITING),
+                buildBooking(6L, second, booker, NOW.plusDays(1), NOW.plusDays(2), WAITING)));
+
+        List<BookingDto> bookingDtos = service.createAll(List.of(
+                buildBookingDto(null, 2L, null, NOW.plusDays(1), NOW.plusDays(2), null),
+                buildBookingDto(null, 3L, null, NOW.plusDays(1), NOW.plusDays(2), null)), 7L);
+        assertEquals(2, bookingDtos.size());
+        assertEquals(5L, bookingDtos.get(0).getId());
+        assertEquals(3L, bookingDtos.get(1).getItemId());
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(itemRepository, never()).findById(anyLong());
+        verify(bookingIntervalIndex, times(1)).confirm(eq(2L), anyLong(), eq(5L));
+        verify(bookingIntervalIndex, times(1)).confirm(eq(3L), anyLong(), eq(6L));
+        verify(itemNameSuggester, times(1)).recordBooking(3L);
+    }
+
+    @Test
+    void createAllItemNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(7L, "mail7@mail.com", "user")));
+        when(itemRepository.findAllById(any())).thenReturn(List.of());
+        assertThrows(ItemNotFoundException.class, () -> service.createAll(List.of(
+                buildBookingDto(null, 2L, null, NOW.plusDays(1), NOW.plusDays(2), null)), 7L));
+        verify(bookingRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void createAllReleasesReservationsOnConflict() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        User booker = buildUser(7L, "mail7@mail.com", "user");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(buildItem(2L, "item", "description", true, owner, null)));
+        when(bookingIntervalIndex.reserve(anyLong(), any(), any()))
+                .thenReturn(-1L)
+                .thenThrow(new ItemNotAvailableException("Item is already booked for these dates"));
+
+        assertThrows(ItemNotAvailableException.class, () -> service.createAll(List.of(
+                buildBookingDto(null, 2L, null, NOW.plusDays(1), NOW.plusDays(2), null),
+                buildBookingDto(null, 2L, null, NOW.plusDays(1), NOW.plusDays(3), null)), 7L));
+        verify(bookingIntervalIndex, times(1)).release(2L, -1L);
+        verify(bookingRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @ParameterizedTest
+    @MethodSource("prepareDataForCreateWithValidationError")
+    void createAllValidationError(BookingDto bookingDto, String expectedErrorMessage) {
+        assertThrows(ValidationException.class, () -> service.createAll(List.of(bookingDto), 5L), expectedErrorMessage);
+    }
+
+    @Test
+    void decideAllApprove() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "mail@mail.com", "user")));
+        when(bookingRepository.findItemIdsByIdIn(anyCollection())).thenReturn(List.of(2L, 3L));
+        when(bookingRepository.findOwnedByIdInAndStatus(anyCollection(), anyLong(), any()))
+                .thenReturn(List.of(buildBookingItemRef(6L, 2L), buildBookingItemRef(9L, 3L)));
+        when(bookingRepository.updateOwnedStatus(anyCollection(), anyLong(), any(), any())).thenReturn(2);
+
+        BookingDecisionDto decision = service.decideAll(List.of(6L, 8L, 9L, 6L), 4L, true);
+        assertEquals(List.of(6L, 9L), decision.getUpdated());
+        assertEquals(List.of(8L), decision.getSkipped());
+        verify(bookingRepository, times(1)).updateOwnedStatus(anyCollection(), anyLong(), any(), any());
+        verify(bookingRepository, times(1)).updateOwnedStatus(Set.of(6L, 9L), 4L, WAITING, APPROVED);
+        verify(bookingRepository, never()).save(any());
+        verify(bookingIntervalIndex, never()).release(anyLong(), anyLong());
+        verify(commentEligibility, times(1)).recordApproval(7L, 2L, NOW.plusDays(1));
+        verify(commentEligibility, times(1)).recordApproval(7L, 3L, NOW.plusDays(1));
+        verify(bookingTimelineCache, times(1)).approved(3L, 9L, 7L, NOW.plusDays(1), NOW.plusDays(2));
+        verify(bookingEventHub, times(2)).publish(eq(4L), eq(BookingEventHub.BOOKING_UPDATED), any());
+    }
+
+    @Test
+    void decideAllRejectLockedCandidates() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "mail@mail.com", "user")));
+        when(bookingRepository.findItemIdsByIdIn(anyCollection())).thenReturn(List.of(2L, 3L));
+        when(bookingRepository.findOwnedByIdInAndStatus(anyCollection(), anyLong(), any()))
+                .thenReturn(List.of(buildBookingItemRef(9L, 3L)));
+        when(bookingRepository.updateOwnedStatus(anyCollection(), anyLong(), any(), any())).thenReturn(1);
+
+        BookingDecisionDto decision = service.decideAll(List.of(6L, 9L), 4L, false);
+        assertEquals(List.of(9L), decision.getUpdated());
+        assertEquals(List.of(6L), decision.getSkipped());
+        verify(bookingRepository, times(1)).updateOwnedStatus(Set.of(9L), 4L, WAITING, REJECTED);
+        verify(bookingIntervalIndex, times(1)).release(3L, 9L);
+        verify(bookingIntervalIndex, never()).release(2L, 6L);
+        verify(commentEligibility, never()).recordApproval(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void decideAllNothingToUpdate() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "mail@mail.com", "user")));
+        when(bookingRepository.findOwnedByIdInAndStatus(anyCollection(), anyLong(), any())).thenReturn(List.of());
+
+        BookingDecisionDto decision = service.decideAll(List.of(1L, 2L), 4L, true);
+        assertEquals(List.of(), decision.getUpdated());
+        assertEquals(List.of(1L, 2L), decision.getSkipped());
+        verify(bookingRepository, never()).updateOwnedStatus(anyCollection(), anyLong(), any(), any());
+    }
+
+    @Test
+    void decideAllEmptyIds() {
+        assertThrows(ValidationException.class, () -> service.decideAll(List.of(), 4L, true));
+    }
+
+    @Test
+    void decideAllUserNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> service.decideAll(List.of(1L), 4L, true));
+    }
+
     @Test
     void updateUserNotFoundException() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -211,6 +382,7 @@ class BookingServiceImplTest extends BaseTest {
         assertEquals(WAITING, bookingDto.getStatus());
         assertEquals(4L, bookingDto.getBookerId());
         assertEquals(2L, bookingDto.getItemId());
+        verify(bookingTimelineCache, never()).removed(anyLong());
 
     }
 
@@ -232,9 +404,105 @@ class BookingServiceImplTest extends BaseTest {
         assertEquals(WAITING, bookingDto.getStatus());
         assertEquals(4L, bookingDto.getBookerId());
         assertEquals(2L, bookingDto.getItemId());
+        verify(commentEligibility, times(1)).recordApproval(4L, 2L, NOW);
+        verify(bookingTimelineCache, times(1)).approved(2L, 5L, 4L, NOW, NOW);
+        verify(bookingEventHub, times(1)).publish(4L, BookingEventHub.BOOKING_UPDATED, bookingDto);
 
     }
 
+    @Test
+    void updateApproveRestoresIntervalWhenSaveFails() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        Item item = buildItem(2L, "item", "description", true, owner, null);
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(buildBooking(5L, item, owner, NOW, NOW, REJECTED)));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 5L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.update(1L, new BookingDto(), 4L, true));
+        verify(bookingIntervalIndex, times(1)).place(2L, 5L, NOW, NOW);
+        verify(bookingIntervalIndex, times(1)).release(2L, 5L);
+        verify(commentEligibility, never()).recordApproval(anyLong(), anyLong(), any());
+        verify(bookingEventHub, never()).publish(anyLong(), any(), any());
+    }
+
+    @Test
+    void updateDatesRestoresIntervalWhenSaveFails() throws Exception {
+        User booker = buildUser(4L, "mail@mail.com", "user");
+        Item item = buildItem(2L, "item", "description", true, buildUser(1L, "owner@mail.com", "owner"), null);
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(buildBooking(5L, item, booker, NOW, NOW.plusDays(1), APPROVED)));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 5L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.update(1L, buildBookingDto(null,
+                2L, null, NOW.plusDays(2), NOW.plusDays(3), null), 4L, null));
+        verify(bookingIntervalIndex, times(1)).place(2L, 5L, NOW.plusDays(2), NOW.plusDays(3));
+        verify(bookingIntervalIndex, times(1)).restore(2L, 5L, NOW, NOW.plusDays(1));
+        verify(commentEligibility, never()).forget(anyLong(), anyLong());
+        verify(bookingTimelineCache, never()).removed(anyLong());
+    }
+
+    @Test
+    void subscribe() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "mail@mail.com", "user")));
+        when(bookingEventHub.subscribe(anyLong())).thenReturn(emitter);
+        assertSame(emitter, service.subscribe(4L));
+        verify(bookingEventHub, times(1)).subscribe(4L);
+    }
+
+    @Test
+    void subscribeUserNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> service.subscribe(4L));
+        verify(bookingEventHub, never()).subscribe(anyLong());
+    }
+
+    @Test
+    void createRunsOnItemLane() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        User booker = buildUser(7L, "mail@mail.com", "user");
+        Item item = buildItem(2L, "item", "description", true, owner, null);
+        List<String> threads = new ArrayList<>();
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
+        when(bookingRepository.save(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return buildBooking(5L, item, booker, NOW.plusDays(3), NOW.plusDays(4), WAITING);
+        });
+
+        service.create(buildBookingDto(null, 2L, null, NOW.plusDays(3), NOW.plusDays(4), null), 7L);
+        assertTrue(threads.get(0).startsWith("item-write-lane-"));
+    }
+
+    @Test
+    void updateRunsOnItemLane() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        Item item = buildItem(2L, "item", "description", true, owner, null);
+        List<String> threads = new ArrayList<>();
+        when(bookingRepository.findItemIdById(anyLong())).thenReturn(Optional.of(2L));
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(buildBooking(5L, item, owner, NOW, NOW, WAITING)));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingRepository.save(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+
+        BookingDto bookingDto = service.update(5L, new BookingDto(), 4L, false);
+        assertEquals(REJECTED, bookingDto.getStatus());
+        assertTrue(threads.get(0).startsWith("item-write-lane-"));
+    }
+
+    @Test
+    void updateOnLaneReportsBookingNotFound() {
+        when(bookingRepository.findItemIdById(anyLong())).thenReturn(Optional.of(2L));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "mail@mail.com", "user")));
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(BookingNotFoundException.class, () -> service.update(5L, new BookingDto(), 4L, true));
+    }
+
     @Test
     void getByIdUserNotFoundException() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -281,6 +549,32 @@ class BookingServiceImplTest extends BaseTest {
         assertEquals(2L, bookingDto.getItemId());
     }
 
+    @Test
+    void getByIdMatchesStaleCachedUserById() throws Exception {
+        User owner = buildUser(4L, "mail@mail.com", "user");
+        User booker = buildUser(3L, "booker@mail.com", "booker");
+        Item item = buildItem(2L, "item", "description", true, owner, null);
+        booker.setVersion(2L);
+        Booking booking = buildBooking(5L, item, booker, NOW.plusDays(3), NOW.plusDays(4), WAITING);
+        User cachedBooker = buildUser(3L, "old@mail.com", "old name");
+        cachedBooker.setVersion(1L);
+        when(bookingRepository.findById(5L)).thenReturn(Optional.of(booking));
+        when(userRepository.findById(3L)).thenReturn(Optional.of(cachedBooker));
+
+        assertEquals(5L, service.getById(5L, 3L).getId());
+    }
+
+    @Test
+    void getETag() {
+        BookingVersionRow row = new SpelAwareProxyProjectionFactory().createProjection(BookingVersionRow.class,
+                Map.of("version", 2L, "itemVersion", 5L, "bookerVersion", 7L, "bookerId", 1L, "ownerId", 4L));
+        when(bookingRepository.findVersionById(3L)).thenReturn(Optional.of(row));
+        assertEquals("W/\"3-2-5-7\"", service.getETag(3L, 1L));
+        assertEquals("W/\"3-2-5-7\"", service.getETag(3L, 4L));
+        assertNull(service.getETag(3L, 2L));
+        assertNull(service.getETag(9L, 1L));
+    }
+
     @Test
     void getAllUserNotFoundException() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -289,116 +583,38 @@ class BookingServiceImplTest extends BaseTest {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"CURRENT", "PAST", "WAITING", "REJECTED", "FUTURE", "ALL"})
-    void getAll(String status) throws Exception {
-        List<Booking> bookings = List.of(buildBooking(3L, buildItem(2L, "item", "description", true, buildUser(4L, "mail@mail.com", "user"), null), buildUser(4L, "mail@mail.com", "user"), NOW.plusDays(3), NOW.plusDays(4), WAITING),
-                buildBooking(1L, buildItem(2L, "item", "description", true, buildUser(4L, "mail@mail.com", "user"), null), buildUser(4L, "mail@mail.com", "user"), NOW.plusDays(2), NOW.plusDays(4), WAITING),
-                buildBooking(2L, buildItem(2L, "item", "description", true, buildUser(4L, "mail@mail.com", "user"), null), buildUser(4L, "mail@mail.com", "user"), NOW.plusDays(1), NOW.plusDays(4), WAITING));
+    @MethodSource("prepareStatusFilters")
+    void getAll(String status, List<BookingState> statuses) throws Exception {
+        List<BookingView> bookings = List.of(buildBookingView(3L, NOW.plusDays(3), NOW.plusDays(4)),
+                buildBookingView(1L, NOW.plusDays(2), NOW.plusDays(4)),
+                buildBookingView(2L, NOW.plusDays(1), NOW.plusDays(4)));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
-        when(bookingRepository.findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByBookerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByBookerIdAndStatus(anyLong(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByBookerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByBookerId(anyLong(), any())).thenReturn(new PageImpl<>(bookings));
+        when(bookingRepository.findBookerPageAfter(anyLong(), anyList(), any(), any(), any(), any(), any(), anyLong(), any())).thenReturn(bookings);
 
         List<BookingDto> bookingDtos = service.getAll(1L, status, 0, 20);
-        switch (status) {
-            case "CURRENT":
-                verify(bookingRepository, times(1)).findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerId(anyLong(), any());
-                break;
-            case "PAST":
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(1)).findAllByBookerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerId(anyLong(), any());
-                break;
-            case "WAITING":
-            case "REJECTED":
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(1)).findAllByBookerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerId(anyLong(), any());
-                break;
-            case "FUTURE":
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(1)).findAllByBookerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerId(anyLong(), any());
-                break;
-            case "ALL":
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByBookerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(1)).findAllByBookerId(anyLong(), any());
-                break;
-        }
+        verify(bookingRepository, times(1)).findBookerPageAfter(eq(1L), eq(statuses), any(), any(), any(), any(), any(), anyLong(), eq(PageRequest.of(0, 20)));
+        verify(bookingRepository, never()).findById(anyLong());
         assertEquals(3L, bookingDtos.get(0).getId());
         assertEquals(1L, bookingDtos.get(1).getId());
         assertEquals(2L, bookingDtos.get(2).getId());
+        assertEquals("item", bookingDtos.get(0).getItem().getName());
+        assertEquals(4L, bookingDtos.get(0).getBooker().getId());
+        assertEquals(2L, bookingDtos.get(0).getItemId());
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"CURRENT", "PAST", "WAITING", "REJECTED", "FUTURE", "ALL"})
-    void getItemsForUser(String status) throws Exception {
-        List<Booking> bookings = List.of(buildBooking(3L, buildItem(2L, "item", "description", true, buildUser(4L, "mail@mail.com", "user"), null), buildUser(4L, "mail@mail.com", "user"), NOW.plusDays(3), NOW.plusDays(4), WAITING),
-                buildBooking(1L, buildItem(2L, "item", "description", true, buildUser(4L, "mail@mail.com", "user"), null), buildUser(4L, "mail@mail.com", "user"), NOW.plusDays(2), NOW.plusDays(4), WAITING),
-                buildBooking(2L, buildItem(2L, "item", "description", true, buildUser(4L, "mail@mail.com", "user"), null), buildUser(4L, "mail@mail.com", "user"), NOW.plusDays(1), NOW.plusDays(4), WAITING));
+    @MethodSource("prepareStatusFilters")
+    void getItemsForUser(String status, List<BookingState> statuses) throws Exception {
+        List<BookingView> bookings = List.of(buildBookingView(3L, NOW.plusDays(3), NOW.plusDays(4)),
+                buildBookingView(1L, NOW.plusDays(2), NOW.plusDays(4)),
+                buildBookingView(2L, NOW.plusDays(1), NOW.plusDays(4)));
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByItemOwnerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByItemOwnerIdAndStatus(anyLong(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any())).thenReturn(new PageImpl<>(bookings));
-        when(bookingRepository.findAllByItemOwnerId(anyLong(), any())).thenReturn(new PageImpl<>(bookings));
-        when(itemRepository.findAll()).thenReturn(List.of(buildItem(2L, "item", "description", true,
-                buildUser(1L, "mail@mail.com", "user"), null)));
-
-        List<BookingDto> bookingDtos = service.getItemsForUser(1L, status, 0, 20);
-        switch (status) {
-            case "CURRENT":
-                verify(bookingRepository, times(1)).findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerId(anyLong(), any());
-                break;
-            case "PAST":
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(1)).findAllByItemOwnerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerId(anyLong(), any());
-                break;
-            case "WAITING":
-            case "REJECTED":
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(1)).findAllByItemOwnerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerId(anyLong(), any());
-                break;
-            case "FUTURE":
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(1)).findAllByItemOwnerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerId(anyLong(), any());
-                break;
-            case "ALL":
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartBeforeAndEndAfter(anyLong(), anyList(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndEndBeforeAndStatus(anyLong(), any(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatus(anyLong(), any(), any());
-                verify(bookingRepository, times(0)).findAllByItemOwnerIdAndStatusInAndStartAfter(anyLong(), anyList(), any(), any());
-                verify(bookingRepository, times(1)).findAllByItemOwnerId(anyLong(), any());
-                break;
-        }
+        when(bookingRepository.findOwnerPageAfter(anyLong(), anyList(), any(), any(), any(), any(), any(), anyLong(), any())).thenReturn(bookings);
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(true);
+
+        List<BookingDto> bookingDtos = service.getItemsForUser(1L, status, 20, 10);
+        verify(itemRepository, never()).findAll();
+        verify(bookingRepository, times(1)).findOwnerPageAfter(eq(1L), eq(statuses), any(), any(), any(), any(), any(), anyLong(), eq(PageRequest.of(2, 10)));
         assertEquals(3L, bookingDtos.get(0).getId());
         assertEquals(1L, bookingDtos.get(1).getId());
         assertEquals(2L, bookingDtos.get(2).getId());
@@ -413,8 +629,7 @@ class BookingServiceImplTest extends BaseTest {
     @Test
     void getItemsForUserUnauthorizedException() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
-        when(itemRepository.findAll()).thenReturn(List.of(buildItem(2L, "item", "description", true,
-                buildUser(1L, "mail@mail.com", "user"), null)));
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(true);
         assertThrows(UnauthorizedException.class, () -> service.getItemsForUser(8L, "ALL", 0, 20));
     }
 
@@ -428,11 +643,102 @@ class BookingServiceImplTest extends BaseTest {
     @Test
     void getItemsForUserUnsupportedStatus() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
-        when(itemRepository.findAll()).thenReturn(List.of(buildItem(2L, "item", "description", true,
-                buildUser(1L, "mail@mail.com", "user"), null)));
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(true);
         assertThrows(ValidationException.class, () -> service.getItemsForUser(1L, "DONE", 0, 20), "Unknown state: UNSUPPORTED_STATUS");
     }
 
+    @Test
+    void exportAll() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(bookingRepository.streamBookerHistory(anyLong(), anyList(), any(), any(), any(), any())).thenReturn(Stream.of(
+                buildBookingView(3L, NOW.plusDays(3), NOW.plusDays(4)),
+                buildBookingView(1L, NOW.plusDays(2), NOW.plusDays(4))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportAll(1L, "FUTURE").writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":3"));
+        assertTrue(lines[1].contains("\"id\":1"));
+        verify(bookingRepository, times(1)).streamBookerHistory(eq(1L), eq(List.of(APPROVED, WAITING)), any(), any(), any(), any());
+        verify(bookingRepository, never()).findBookerPageAfter(anyLong(), anyList(), any(), any(), any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void exportAllUserNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> service.exportAll(8L, "ALL"));
+        verify(bookingRepository, never()).streamBookerHistory(anyLong(), anyList(), any(), any(), any(), any());
+    }
+
+    @Test
+    void exportItemsForUser() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(true);
+        when(bookingRepository.streamOwnerHistory(anyLong(), anyList(), any(), any(), any(), any())).thenReturn(Stream.of(
+                buildBookingView(2L, NOW.plusDays(1), NOW.plusDays(4))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportItemsForUser(1L, "ALL").writeTo(out);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"name\":\"item\""));
+    }
+
+    @Test
+    void exportItemsForUserUnauthorized() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        assertThrows(UnauthorizedException.class, () -> service.exportItemsForUser(8L, "ALL"));
+    }
+
+
+    @Test
+    void getAllAfter() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "mail@mail.com", "user")));
+        when(bookingRepository.findBookerPageAfter(anyLong(), anyList(), any(), any(), any(), any(), any(), anyLong(), any())).thenReturn(List.of(
+                buildBookingView(3L, NOW.plusDays(3), NOW.plusDays(4)),
+                buildBookingView(1L, NOW.plusDays(2), NOW.plusDays(4)),
+                buildBookingView(2L, NOW.plusDays(1), NOW.plusDays(4))));
+
+        BookingPageDto page = service.getAllAfter(4L, "FUTURE", "", 2);
+        assertEquals(2, page.getBookings().size());
+        assertEquals(3L, page.getBookings().get(0).getId());
+        assertEquals(1L, page.getBookings().get(1).getId());
+        TimeIdCursor next = TimeIdCursor.decode(page.getNextCursor());
+        assertEquals(NOW.plusDays(2), next.getTime());
+        assertEquals(1L, next.getId());
+    }
+
+    @Test
+    void getItemsForUserAfterLastPage() throws Exception {
+        User owner = buildUser(1L, "owner@mail.com", "owner");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(owner));
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(true);
+        when(bookingRepository.findOwnerPageAfter(anyLong(), anyList(), any(), any(), any(), any(), any(), anyLong(), any())).thenReturn(List.of(
+                buildBookingView(3L, NOW.plusDays(3), NOW.plusDays(4))));
+
+        BookingPageDto page = service.getItemsForUserAfter(1L, "ALL", TimeIdCursor.encode(NOW.plusDays(5), 9L), 2);
+        assertEquals(1, page.getBookings().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAllAfterInvalidCursor() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(new User()));
+        assertThrows(ValidationException.class, () -> service.getAllAfter(1L, "ALL", "not-a-cursor", 2));
+    }
+
+    private static Stream<Arguments> prepareStatusFilters() {
+        return Stream.of(
+                Arguments.of("CURRENT", List.of(APPROVED, WAITING, REJECTED)),
+                Arguments.of("PAST", List.of(APPROVED)),
+                Arguments.of("WAITING", List.of(WAITING)),
+                Arguments.of("REJECTED", List.of(REJECTED)),
+                Arguments.of("FUTURE", List.of(APPROVED, WAITING)),
+                Arguments.of("ALL", List.of(BookingState.values())));
+    }
+
+    private static BookingView buildBookingView(Long id, LocalDateTime start, LocalDateTime end) {
+        return new BookingView(id, start, end, WAITING, 2L, "item", 4L, "user");
+    }
 
     private static Stream<Arguments> prepareDataForCreateWithValidationError() {
         return Stream.of(
@@ -445,4 +751,33 @@ class BookingServiceImplTest extends BaseTest {
                 Arguments.of(buildBookingDto(null, 5L, 3L, NOW.plusDays(10), NOW.plusDays(4), null), "Start or End is wrong")
         );
     }
-}
\ No newline at end of file
+
+    private static BookingItemRef buildBookingItemRef(long id, long itemId) {
+        return new BookingItemRef() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getBookerId() {
+                return 7L;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return NOW.plusDays(1);
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return NOW.plusDays(2);
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.booking.dto.NearestBookings;
+import ru.practicum.shareit.booking.model.BookingItemRef;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingTimelineCacheTest extends BaseTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 4, 10, 12, 0);
+
+    private BookingRepository bookingRepository;
+    private BookingTimelineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findTimelineByItemIdIn(anyCollection(), any(), any())).thenReturn(List.of(
+                buildRef(4L, 2L, NOW.minusDays(2)),
+                buildRef(9L, 2L, NOW.plusDays(3)),
+                buildRef(7L, 2L, NOW.plusDays(1))));
+        cache = new BookingTimelineCache(bookingRepository, 2);
+    }
+
+    @Test
+    void nearestIsLoadedOnceForAllItems() {
+        Map<Long, NearestBookings> nearest = cache.nearest(List.of(2L, 3L), NOW);
+        assertEquals(4L, nearest.get(2L).getLast().getId());
+        assertEquals(7L, nearest.get(2L).getNext().getId());
+        assertNull(nearest.get(3L).getLast());
+        assertNull(nearest.get(3L).getNext());
+
+        nearest = cache.nearest(List.of(2L, 3L), NOW.plusDays(2));
+        assertEquals(7L, nearest.get(2L).getLast().getId());
+        assertEquals(9L, nearest.get(2L).getNext().getId());
+        verify(bookingRepository, times(1)).findTimelineByItemIdIn(anyCollection(), any(), any());
+    }
+
+    @Test
+    void approvedBookingIsAddedInPlace() {
+        cache.nearest(List.of(2L), NOW);
+        cache.approved(2L, 11L, 5L, NOW.plusHours(1), NOW.plusHours(2));
+
+        NearestBookings nearest = cache.nearest(List.of(2L), NOW).get(2L);
+        assertEquals(11L, nearest.getNext().getId());
+        assertEquals(5L, nearest.getNext().getBookerId());
+        verify(bookingRepository, times(1)).findTimelineByItemIdIn(anyCollection(), any(), any());
+    }
+
+    @Test
+    void removedBookingReloadsTimeline() {
+        cache.nearest(List.of(2L), NOW);
+        cache.removed(2L);
+        cache.nearest(List.of(2L), NOW);
+        verify(bookingRepository, times(2)).findTimelineByItemIdIn(eq(List.of(2L)), any(), any());
+    }
+
+    @Test
+    void leastRecentlyUsedTimelineIsEvicted() {
+        when(bookingRepository.findTimelineByItemIdIn(eq(List.of(3L)), any(), any())).thenReturn(List.of());
+        when(bookingRepository.findTimelineByItemIdIn(eq(List.of(4L)), any(), any())).thenReturn(List.of());
+        cache.nearest(List.of(2L), NOW);
+        cache.nearest(List.of(3L), NOW);
+        cache.nearest(List.of(2L), NOW);
+        cache.nearest(List.of(4L), NOW);
+
+        cache.nearest(List.of(2L), NOW);
+        verify(bookingRepository, times(1)).findTimelineByItemIdIn(eq(List.of(2L)), any(), any());
+        cache.nearest(List.of(3L), NOW);
+        verify(bookingRepository, times(2)).findTimelineByItemIdIn(eq(List.of(3L)), any(), any());
+    }
+
+    private static BookingItemRef buildRef(long id, long itemId, LocalDateTime start) {
+        return new BookingItemRef() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getBookerId() {
+                return 3L;
+            }
+
+            @Override
+            public LocalDateTime getStart() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEnd() {
+                return start.plusHours(12);
+            }
+        };
+    }
+}
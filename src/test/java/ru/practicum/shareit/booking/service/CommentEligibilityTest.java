@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static ru.practicum.shareit.booking.BookingState.APPROVED;
+
+class CommentEligibilityTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private BookingRepository bookingRepository;
+    private CommentEligibility commentEligibility;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        commentEligibility = new CommentEligibility(bookingRepository);
+    }
+
+    @Test
+    void canCommentAfterRecordedApprovalWithoutQuery() {
+        commentEligibility.recordApproval(1L, 2L, NOW.minusDays(1));
+        assertTrue(commentEligibility.canComment(1L, 2L, NOW));
+        verify(bookingRepository, never()).existsByBookerIdAndItemIdAndStatusAndStartBefore(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void canCommentFallsBackToQueryAndRemembersAnswer() {
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusAndStartBefore(1L, 2L, APPROVED, NOW)).thenReturn(true);
+        assertTrue(commentEligibility.canComment(1L, 2L, NOW));
+        assertTrue(commentEligibility.canComment(1L, 2L, NOW.plusMinutes(1)));
+        verify(bookingRepository, times(1)).existsByBookerIdAndItemIdAndStatusAndStartBefore(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void cannotCommentBeforeApprovedBookingStarts() {
+        commentEligibility.recordApproval(1L, 2L, NOW.plusDays(1));
+        assertFalse(commentEligibility.canComment(1L, 2L, NOW));
+        verify(bookingRepository, times(1)).existsByBookerIdAndItemIdAndStatusAndStartBefore(1L, 2L, APPROVED, NOW);
+    }
+
+    @Test
+    void forgetDropsRecordedApproval() {
+        commentEligibility.recordApproval(1L, 2L, NOW.minusDays(1));
+        commentEligibility.forget(1L, 2L);
+        assertFalse(commentEligibility.canComment(1L, 2L, NOW));
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ItemWriteLanesBenchmarkTest {
+    private static final int CLIENTS = 16;
+    private static final int WRITES_PER_CLIENT = 100;
+    private static final int COLD_ITEMS = 1_000;
+    private static final long OWNER_ID = 1L;
+
+    private final AtomicLong slot = new AtomicLong();
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        for (long id = OWNER_ID; id <= CLIENTS + 1; id++) {
+            users.add(new Object[]{id, "user" + id + "@mail.com", "user" + id});
+        }
+        jdbcTemplate.batchUpdate("insert into users(id, email, name) values (?, ?, ?)", users);
+        List<Object[]> items = new ArrayList<>();
+        for (long id = 1; id <= COLD_ITEMS; id++) {
+            items.add(new Object[]{id, "item" + id, "description" + id, true, OWNER_ID});
+        }
+        jdbcTemplate.batchUpdate("insert into items(id, name, description, available, owner_id) values (?, ?, ?, ?, ?)", items);
+    }
+
+    @Test
+    void hotItemVersusColdItems() throws Exception {
+        measure("warm-up", () -> ThreadLocalRandom.current().nextLong(1, COLD_ITEMS + 1));
+        Result hot = measure("one hot item", () -> 1L);
+        Result cold = measure(COLD_ITEMS + " cold items", () -> ThreadLocalRandom.current().nextLong(1, COLD_ITEMS + 1));
+        for (Result result : List.of(hot, cold)) {
+            log.info("{}: {} writes/s, p99 {} ms", result.name, String.format("%.0f", result.throughput),
+                    String.format("%.2f", result.p99Millis));
+        }
+        assertEquals(3L * CLIENTS * WRITES_PER_CLIENT, jdbcTemplate.queryForObject("select count(*) from bookings", Long.class));
+    }
+
+    private Result measure(String name, ItemPicker items) throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long[] latencies = new long[CLIENTS * WRITES_PER_CLIENT];
+        List<Future<?>> submitted = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int client = 0; client < CLIENTS; client++) {
+            int offset = client * WRITES_PER_CLIENT;
+            long bookerId = OWNER_ID + 1 + client;
+            submitted.add(clients.submit(() -> {
+                for (int i = 0; i < WRITES_PER_CLIENT; i++) {
+                    LocalDateTime start = base.plusHours(slot.incrementAndGet());
+                    BookingDto booking = new BookingDto();
+                    booking.setItemId(items.next());
+                    booking.setStart(start);
+                    booking.setEnd(start.plusMinutes(30));
+                    long before = System.nanoTime();
+                    bookingService.create(booking, bookerId);
+                    latencies[offset + i] = System.nanoTime() - before;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : submitted) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - started;
+        clients.shutdown();
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+        return new Result(name, latencies.length * 1e9 / elapsed, p99 / 1e6);
+    }
+
+    private interface ItemPicker {
+        long next();
+    }
+
+    private static class Result {
+        private final String name;
+        private final double throughput;
+        private final double p99Millis;
+
+        Result(String name, double throughput, double p99Millis) {
+            this.name = name;
+            this.throughput = throughput;
+            this.p99Millis = p99Millis;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemWriteLanesTest {
+
+    private ItemWriteLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        lanes = new ItemWriteLanes(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.shutdown();
+    }
+
+    @Test
+    void writesForOneItemNeverOverlap() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        int[] counter = new int[1];
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<?>> submitted = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            submitted.add(clients.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    lanes.run(7L, () -> {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        counter[0]++;
+                        active.decrementAndGet();
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : submitted) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        clients.shutdown();
+        assertEquals(1, maxActive.get());
+        assertEquals(800, lanes.run(7L, () -> counter[0]));
+    }
+
+    @Test
+    void differentLanesRunInParallel() throws Exception {
+        long first = 0;
+        long second = 1;
+        while (lanes.laneOf(second) == lanes.laneOf(first)) {
+            second++;
+        }
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        long otherItem = second;
+        CompletableFuture<Boolean> slow = CompletableFuture.supplyAsync(() -> runQuietly(first, bothStarted));
+        CompletableFuture<Boolean> fast = CompletableFuture.supplyAsync(() -> runQuietly(otherItem, bothStarted));
+        assertTrue(slow.get(5, TimeUnit.SECONDS));
+        assertTrue(fast.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void checkedExceptionIsRethrownAsIs() {
+        ItemNotAvailableException thrown = assertThrows(ItemNotAvailableException.class, () -> lanes.run(3L, () -> {
+            throw new ItemNotAvailableException("Item is already booked for these dates");
+        }));
+        assertEquals("Item is already booked for these dates", thrown.getMessage());
+    }
+
+    @Test
+    void nestedRunOnSameLaneDoesNotDeadlock() throws Exception {
+        String result = lanes.run(5L, () -> lanes.run(5L, () -> Thread.currentThread().getName()));
+        assertTrue(result.startsWith("item-write-lane-"));
+    }
+
+    @Test
+    void runInsideCallerTransactionIsRejected() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThrows(IllegalStateException.class, () -> lanes.run(5L, () -> null));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @Test
+    void runAllHoldsEveryLaneOfItsItems() throws Exception {
+        long first = 0;
+        long second = 1;
+        while (lanes.laneOf(second) == lanes.laneOf(first)) {
+            second++;
+        }
+        long otherItem = second;
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch finishBatch = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> {
+            try {
+                lanes.runAll(List.of(first, otherItem), () -> {
+                    batchStarted.countDown();
+                    finishBatch.await(2, TimeUnit.SECONDS);
+                    order.add("batch");
+                    return lanes.run(otherItem, () -> null);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(batchStarted.await(2, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> single = CompletableFuture.supplyAsync(() -> {
+            try {
+                return lanes.run(otherItem, () -> order.add("single"));
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(single.isDone());
+        finishBatch.countDown();
+        batch.get(5, TimeUnit.SECONDS);
+        assertTrue(single.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("batch", "single"), order);
+    }
+
+    @Test
+    void fullLaneQueueIsReportedAsUnavailable() throws Exception {
+        ItemWriteLanes bounded = new ItemWriteLanes(1, 1, 5_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            CompletableFuture.runAsync(() -> runBlocking(bounded, started, release));
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+            CompletableFuture.runAsync(() -> runBlocking(bounded, new CountDownLatch(1), release));
+            Thread.sleep(100);
+            assertThrows(ServiceUnavailableException.class, () -> bounded.run(1L, () -> null));
+        } finally {
+            release.countDown();
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void slowLaneIsReportedAsUnavailable() throws Exception {
+        ItemWriteLanes impatient = new ItemWriteLanes(1, 10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertThrows(ServiceUnavailableException.class, () -> impatient.run(1L, () -> release.await(2, TimeUnit.SECONDS)));
+        } finally {
+            release.countDown();
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    void laneCountDefaultsToProcessors() {
+        ItemWriteLanes defaults = new ItemWriteLanes(0);
+        assertEquals(Runtime.getRuntime().availableProcessors(), defaults.size());
+        defaults.shutdown();
+    }
+
+    private void runBlocking(ItemWriteLanes target, CountDownLatch started, CountDownLatch release) {
+        try {
+            target.run(1L, () -> {
+                started.countDown();
+                return release.await(2, TimeUnit.SECONDS);
+            });
+        } catch (Exception ignored) {
+        }
+    }
+
+    private Boolean runQuietly(long itemId, CountDownLatch bothStarted) {
+        try {
+            return lanes.run(itemId, () -> {
+                bothStarted.countDown();
+                return bothStarted.await(2, TimeUnit.SECONDS);
+            });
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
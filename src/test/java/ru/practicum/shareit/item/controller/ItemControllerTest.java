@@ -9,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.BaseTest;
 import ru.practicum.shareit.booking.BookingState;
@@ -17,18 +18,35 @@ import ru.practicum.shareit.exception.UnauthorizedException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportReportDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -183,6 +201,29 @@ class ItemControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.available").value(true));
     }
 
+    @Test
+    void getByIdSendsETag() throws Exception {
+        when(service.getETag(12L, 11L)).thenReturn("W/\"12-3-0-null\"");
+        when(service.getById(12L, 11L)).thenReturn(buildItemDto(12L, "Бензопила", "Бензопила \"Дружба\"", true));
+
+        mockMvc.perform(get("/items/12")
+                        .header(xShareUserId, 11))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"12-3-0-null\""))
+                .andExpect(jsonPath("$.id").value(12));
+    }
+
+    @Test
+    void getByIdNotModified() throws Exception {
+        when(service.getETag(12L, 11L)).thenReturn("W/\"12-3-0-null\"");
+
+        mockMvc.perform(get("/items/12")
+                        .header(xShareUserId, 11)
+                        .header("If-None-Match", "W/\"12-3-0-null\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).getById(anyLong(), anyLong());
+    }
+
     @Test
     void getByIdItemNotFound() throws Exception {
         when(service.getById(anyLong(), anyLong())).thenThrow(new ItemNotFoundException("Item not found"));
@@ -290,6 +331,122 @@ class ItemControllerTest extends BaseTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void suggest() throws Exception {
+        when(service.suggest("дре", 5)).thenReturn(List.of("Дрель", "Дрель ударная"));
+
+        mockMvc.perform(get("/items/suggest")
+                        .param("prefix", "дре")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Дрель"))
+                .andExpect(jsonPath("$[1]").value("Дрель ударная"));
+    }
+
+    @Test
+    void filter() throws Exception {
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setAvailable(true);
+        filter.setOwners(List.of(4L));
+        filter.setTags(List.of("инструмент", "ремонт"));
+        filter.setAllTags(true);
+        ItemFacetsDto facets = new ItemFacetsDto();
+        facets.setTotal(1);
+        facets.setAvailable(1);
+        facets.setTags(Map.of("инструмент", 1L, "ремонт", 1L));
+        facets.setOwners(Map.of(4L, 1L));
+        facets.setItems(List.of(buildItemDto(2L, "Отвертка", "Отвертка крестовая", true)));
+        when(service.filter(filter, 0, 5)).thenReturn(facets);
+
+        mockMvc.perform(get("/items/filter")
+                        .param("available", "true")
+                        .param("owners", "4")
+                        .param("tags", "инструмент", "ремонт")
+                        .param("allTags", "true")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.tags.ремонт").value(1))
+                .andExpect(jsonPath("$.owners.4").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Отвертка"));
+    }
+
+    @Test
+    void importItems() throws Exception {
+        ItemImportReportDto report = new ItemImportReportDto();
+        report.setTotal(2);
+        report.setImported(1);
+        report.setFailed(1);
+        report.getErrors().add(new ItemImportErrorDto(2L, "Not valid"));
+        when(service.importItems(eq(11L), any(), eq(true))).thenReturn(report);
+
+        mockMvc.perform(post("/items/import")
+                        .header(xShareUserId, 11)
+                        .contentType("text/csv")
+                        .content("name,description,available\nДрель,Простая дрель,true\nПила,,true\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].error").value("Not valid"));
+    }
+
+    @Test
+    void export() throws Exception {
+        byte[] body = "{\"id\":12,\"name\":\"Бензопила\"}\n".getBytes(StandardCharsets.UTF_8);
+        when(service.export(11L)).thenReturn(out -> out.write(body));
+        MvcResult result = mockMvc.perform(get("/items/export")
+                        .header(xShareUserId, 11))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().bytes(body));
+    }
+
+    @Test
+    void exportUserNotFound() throws Exception {
+        when(service.export(anyLong())).thenThrow(new UserNotFoundException("User not found"));
+        mockMvc.perform(get("/items/export")
+                        .header(xShareUserId, 11))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getComments() throws Exception {
+        CommentPageDto page = new CommentPageDto();
+        page.setComments(List.of(buildCommentDto(9L, "Бензопила отличная", LocalDateTime.now(), "user123")));
+        page.setNextCursor("OQ");
+        when(service.getComments(12L, null, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/items/12/comments")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "OQ"))
+                .andExpect(jsonPath("$[0].id").value(9));
+    }
+
+    @Test
+    void getCommentsLastPage() throws Exception {
+        CommentPageDto page = new CommentPageDto();
+        page.setComments(List.of());
+        when(service.getComments(12L, "OQ", 20)).thenReturn(page);
+
+        mockMvc.perform(get("/items/12/comments")
+                        .param("cursor", "OQ"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void getCommentsSizeTooLarge() throws Exception {
+        mockMvc.perform(get("/items/12/comments")
+                        .param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).getComments(anyLong(), any(), any());
+    }
+
     @Test
     void addComment() throws Exception {
         when(service.addComment(anyLong(), anyLong(), any())).thenReturn(buildCommentDto(1L, "Бензопила отличная", LocalDateTime.now(), "user123"));
@@ -339,4 +496,33 @@ class ItemControllerTest extends BaseTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Empty comment"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAvailability() throws Exception {
+        ItemAvailabilityDto availability = new ItemAvailabilityDto();
+        availability.setItemId(2L);
+        availability.setBusy(List.of(new TimeSlotDto(getDateFromString("2030-04-02 10:00:00"), getDateFromString("2030-04-03 10:00:00"))));
+        availability.setNextFreeWindow(new TimeSlotDto(getDateFromString("2030-04-03 10:00:00"), getDateFromString("2030-04-03 12:00:00")));
+        when(service.getAvailability(2L, LocalDateTime.of(2030, 4, 1, 0, 0), LocalDateTime.of(2030, 4, 10, 0, 0), Duration.ofHours(2)))
+                .thenReturn(availability);
+
+        mockMvc.perform(get("/items/2/availability")
+                        .param("from", "2030-04-01T00:00:00")
+                        .param("to", "2030-04-10T00:00:00")
+                        .param("duration", "PT2H"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(2))
+                .andExpect(jsonPath("$.busy[0].start").value("2030-04-02T10:00:00"))
+                .andExpect(jsonPath("$.nextFreeWindow.end").value("2030-04-03T12:00:00"));
+    }
+
+    @Test
+    void getAvailabilityItemNotFound() throws Exception {
+        when(service.getAvailability(anyLong(), any(), any(), any())).thenThrow(new ItemNotFoundException("Item not found"));
+
+        mockMvc.perform(get("/items/99/availability")
+                        .param("to", "2030-04-10T00:00:00"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Объект не найден"));
+    }
+}
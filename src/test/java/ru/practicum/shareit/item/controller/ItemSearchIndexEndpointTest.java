@@ -0,0 +1,47 @@
+package ru.practicum.shareit.item.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.service.ItemService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ItemSearchIndexEndpointTest {
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private ItemService itemService;
+
+    @Test
+    void rebuildDelegatesToService() {
+        ItemService service = mock(ItemService.class);
+        when(service.rebuildSearchIndex()).thenReturn(42);
+
+        assertEquals(42, new ItemSearchIndexEndpoint(service).rebuild());
+    }
+
+    @Test
+    void rebuildIsExposedOverHttp() throws Exception {
+        when(itemService.rebuildSearchIndex()).thenReturn(42);
+
+        mvc.perform(post("/actuator/itemsearchindex"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("42"));
+        verify(itemService, times(1)).rebuildSearchIndex();
+    }
+}
@@ -3,14 +3,23 @@ package ru.practicum.shareit.item.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import ru.practicum.shareit.BaseTest;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.CommentRow;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCommentCount;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -23,6 +32,10 @@ class CommentRepositoryTest extends BaseTest {
 
     @Autowired
     private CommentRepository commentRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
 
     @Test
     void save() {
@@ -33,6 +46,47 @@ class CommentRepositoryTest extends BaseTest {
         assertEquals(4, savedItemRequest.getId());
     }
 
+    @Test
+    void findLatestByItemIdIn() {
+        addComments(2L, 3);
+        List<CommentRow> comments = commentRepository.findLatestByItemIdIn(List.of(4L, 2L, 5L), 2);
+        assertEquals(3, comments.size());
+        assertEquals(2L, comments.get(0).getItemId());
+        assertEquals(6L, comments.get(0).getId());
+        assertEquals(5L, comments.get(1).getId());
+        assertEquals("updateName", comments.get(0).getAuthorName());
+        assertEquals(4L, comments.get(2).getItemId());
+        assertEquals(3L, comments.get(2).getId());
+    }
+
+    @Test
+    void countByItemIdIn() {
+        addComments(2L, 3);
+        Map<Long, Long> counts = commentRepository.countByItemIdIn(List.of(2L, 4L, 5L)).stream()
+                .collect(Collectors.toMap(ItemCommentCount::getItemId, ItemCommentCount::getTotal));
+        assertEquals(Map.of(2L, 4L, 4L, 1L), counts);
+    }
+
+    @Test
+    void findItemPageBefore() {
+        addComments(2L, 3);
+        List<CommentRow> first = commentRepository.findItemPageBefore(2L, Long.MAX_VALUE, PageRequest.of(0, 2));
+        assertEquals(List.of(6L, 5L), first.stream().map(CommentRow::getId).collect(Collectors.toList()));
+        List<CommentRow> next = commentRepository.findItemPageBefore(2L, 5L, PageRequest.of(0, 2));
+        assertEquals(List.of(4L, 1L), next.stream().map(CommentRow::getId).collect(Collectors.toList()));
+    }
+
+    private void addComments(Long itemId, int count) {
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        User author = userRepository.findById(1L).orElseThrow();
+        for (int i = 0; i < count; i++) {
+            Comment comment = buildComment(null, "comment " + i, LocalDateTime.now(), author.getName(), author);
+            comment.setItem(item);
+            commentRepository.save(comment);
+        }
+        commentRepository.flush();
+    }
+
     @Test
     void findAll() {
         List<Comment> comments = commentRepository.findAll();
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCatalogRow;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@DataJpaTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ItemCatalogBenchmarkTest {
+    private static final int OWNERS = 100;
+    private static final int ITEMS = 100_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int ROUNDS = 200;
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        for (long id = 1; id <= OWNERS; id++) {
+            users.add(new Object[]{id, "owner" + id + "@mail.com", "owner" + id});
+        }
+        jdbcTemplate.batchUpdate("insert into users(id, email, name) values (?, ?, ?)", users);
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> bookings = new ArrayList<>();
+        long bookingId = 1;
+        for (long id = 1; id <= ITEMS; id++) {
+            long owner = id % OWNERS + 1;
+            long booker = (id + 1) % OWNERS + 1;
+            items.add(new Object[]{id, "item" + id, "description" + id, true, owner});
+            for (int day = -3; day <= 3; day += 2) {
+                LocalDateTime start = NOW.plusDays(day).plusMinutes(id % 60);
+                bookings.add(new Object[]{bookingId++, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(6)),
+                        day == 1 ? BookingState.WAITING.name() : BookingState.APPROVED.name(), booker, id});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into items(id, name, description, available, owner_id) values (?, ?, ?, ?, ?)", items);
+        jdbcTemplate.batchUpdate("insert into bookings(id, booking_start, booking_end, booking_status, booker_id, item_id) "
+                + "values (?, ?, ?, ?, ?, ?)", bookings);
+    }
+
+    @Test
+    void catalogQueryVersusGroupedBookingLists() {
+        long separate = measure(round -> {
+            long owner = round % OWNERS + 1;
+            List<Item> page = itemRepository.findAllByOwnerId(owner, PageRequest.of(round % 5, PAGE_SIZE)).getContent();
+            List<Long> ids = page.stream().map(Item::getId).collect(Collectors.toList());
+            entityManager.createQuery("select b from Booking b where b.item.id in ?1 and b.status = ?2 "
+                    + "and (b.end < ?3 or (b.start < ?4 and b.end > ?5))", Booking.class)
+                    .setParameter(1, ids).setParameter(2, BookingState.APPROVED)
+                    .setParameter(3, NOW).setParameter(4, NOW).setParameter(5, NOW)
+                    .getResultList();
+            entityManager.createQuery("select b from Booking b where b.item.id in ?1 and b.status = ?2 and b.start > ?3", Booking.class)
+                    .setParameter(1, ids).setParameter(2, BookingState.APPROVED).setParameter(3, NOW)
+                    .getResultList();
+            return page.size();
+        });
+        long catalog = measure(round -> {
+            long owner = round % OWNERS + 1;
+            List<ItemCatalogRow> rows = itemRepository.findOwnerCatalog(owner, NOW, PAGE_SIZE, round % 5 * PAGE_SIZE);
+            return rows.size();
+        });
+        log.info("{} items, {} rounds of {}-item pages", ITEMS, ROUNDS, PAGE_SIZE);
+        log.info("three queries: {} ms per page", String.format("%.2f", separate / 1e6 / ROUNDS));
+        log.info("catalog query: {} ms per page", String.format("%.2f", catalog / 1e6 / ROUNDS));
+    }
+
+    private long measure(Page page) {
+        for (int round = 0; round < ROUNDS / 10; round++) {
+            page.load(round);
+            entityManager.clear();
+        }
+        long started = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            assertEquals(PAGE_SIZE, page.load(round));
+            entityManager.clear();
+        }
+        return System.nanoTime() - started;
+    }
+
+    private interface Page {
+        int load(int round);
+    }
+}
@@ -9,10 +9,22 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCatalogRow;
+import ru.practicum.shareit.item.model.ItemExportRow;
+import ru.practicum.shareit.item.model.ItemFacetRow;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.model.ItemTagRow;
+import ru.practicum.shareit.item.model.ItemVersionRow;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -34,13 +46,86 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrueOrderById() {
-        List<Item> items = itemRepository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrue("АккУМулятОРНая",
-                "АккУМулятОРНая",
-                PageRequest.of(0, 10, Sort.by("id"))).getContent();
-        assertEquals(2, items.size());
-        assertEquals(1, items.get(0).getId());
-        assertEquals(2, items.get(1).getId());
+    void existsByOwnerId() {
+        assertTrue(itemRepository.existsByOwnerId(4L));
+        assertFalse(itemRepository.existsByOwnerId(2L));
+    }
+
+    @Test
+    void findOwnerCatalog() {
+        List<ItemCatalogRow> rows = itemRepository.findOwnerCatalog(4L, LocalDateTime.of(2023, 4, 3, 16, 0), 10, 0);
+        assertEquals(3, rows.size());
+        assertEquals(2L, rows.get(0).getId());
+        assertEquals(1L, rows.get(0).getLastId());
+        assertEquals(1L, rows.get(0).getLastBookerId());
+        assertEquals(LocalDateTime.of(2023, 4, 3, 15, 34, 34), rows.get(0).getLastStart());
+        assertEquals(4L, rows.get(0).getNextId());
+        assertEquals(3L, rows.get(0).getNextBookerId());
+        assertEquals(3L, rows.get(1).getId());
+        assertNull(rows.get(1).getLastId());
+        assertNull(rows.get(1).getNextId());
+        assertEquals(5L, rows.get(2).getId());
+        assertEquals(1L, rows.get(2).getRequestId());
+    }
+
+    @Test
+    void findOwnerCatalogPage() {
+        List<ItemCatalogRow> rows = itemRepository.findOwnerCatalog(4L, LocalDateTime.of(2023, 4, 3, 16, 0), 2, 2);
+        assertEquals(1, rows.size());
+        assertEquals(5L, rows.get(0).getId());
+    }
+
+    @Test
+    void findSearchRowsAfter() {
+        List<ItemSearchRow> rows = itemRepository.findSearchRowsAfter(2L, PageRequest.of(0, 2));
+        assertEquals(2, rows.size());
+        assertEquals(3L, rows.get(0).getId());
+        assertEquals(4L, rows.get(1).getId());
+        assertEquals(Boolean.TRUE, rows.get(0).getAvailable());
+        assertEquals(3L, rows.get(1).getOwnerId());
+    }
+
+    @Test
+    void findFacetRowsAfter() {
+        List<ItemFacetRow> rows = itemRepository.findFacetRowsAfter(1L, PageRequest.of(0, 2));
+        assertEquals(2, rows.size());
+        assertEquals(2L, rows.get(0).getId());
+        assertEquals(4L, rows.get(0).getOwnerId());
+        assertNull(rows.get(0).getRequestId());
+        assertEquals(2L, rows.get(1).getRequestId());
+    }
+
+    @Test
+    void streamAllByOwnerId() {
+        List<ItemExportRow> rows;
+        try (Stream<ItemExportRow> stream = itemRepository.streamAllByOwnerId(4L)) {
+            rows = stream.collect(Collectors.toList());
+        }
+        assertEquals(List.of(2L, 3L, 5L), rows.stream().map(ItemExportRow::getId).collect(Collectors.toList()));
+        assertEquals("Отвертка", rows.get(0).getName());
+        assertNull(rows.get(0).getRequestId());
+        assertEquals(2L, rows.get(1).getRequestId());
+    }
+
+    @Test
+    void findVersionById() {
+        ItemVersionRow commented = itemRepository.findVersionById(2L).orElseThrow();
+        assertEquals(0L, commented.getVersion());
+        assertEquals(4L, commented.getOwnerId());
+        assertEquals(1L, commented.getCommentsCount());
+        assertEquals(1L, commented.getLastCommentId());
+        assertEquals(0L, commented.getCommentAuthorsVersion());
+        ItemVersionRow quiet = itemRepository.findVersionById(5L).orElseThrow();
+        assertEquals(0L, quiet.getCommentsCount());
+        assertNull(quiet.getLastCommentId());
+        assertEquals(0L, quiet.getCommentAuthorsVersion());
+    }
+
+    @Test
+    void findAllTags() {
+        List<ItemTagRow> tags = itemRepository.findAllTags();
+        assertEquals(3, tags.size());
+        assertTrue(tags.stream().anyMatch(tag -> tag.getItemId() == 3L && tag.getTag().equals("ремонт")));
     }
 
     @Test
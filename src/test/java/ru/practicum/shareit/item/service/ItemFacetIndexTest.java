@@ -0,0 +1,156 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
+import ru.practicum.shareit.item.model.ItemFacetRow;
+import ru.practicum.shareit.item.model.ItemTagRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemFacetIndexTest {
+    private static final SpelAwareProxyProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private ItemFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findFacetRowsAfter(eq(0L), any())).thenReturn(List.of(
+                buildRow(1L, 1L, 3L, true),
+                buildRow(2L, 4L, null, true),
+                buildRow(3L, 4L, 2L, false),
+                buildRow(4L, 3L, null, true),
+                buildRow(5L, 4L, 1L, true)));
+        when(itemRepository.findAllTags()).thenReturn(List.of(
+                buildTag(1L, "инструмент"),
+                buildTag(1L, "электро"),
+                buildTag(2L, "инструмент"),
+                buildTag(3L, "ремонт"),
+                buildTag(4L, "мебель"),
+                buildTag(5L, "инструмент"),
+                buildTag(5L, "ремонт")));
+        index = new ItemFacetIndex(itemRepository);
+        index.warmUp();
+    }
+
+    @Test
+    void filtersAcrossFacets() {
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setAvailable(true);
+        filter.setOwners(List.of(4L));
+        assertEquals(List.of(2L, 5L), ItemFacetIndex.page(index.select(filter), 0, 10));
+
+        filter.setRequestLinked(true);
+        assertEquals(List.of(5L), ItemFacetIndex.page(index.select(filter), 0, 10));
+
+        ItemFilterDto unavailable = new ItemFilterDto();
+        unavailable.setAvailable(false);
+        assertEquals(List.of(3L), ItemFacetIndex.page(index.select(unavailable), 0, 10));
+    }
+
+    @Test
+    void tagsMatchAnyOrAll() {
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setTags(List.of(" Ремонт", "электро"));
+        assertEquals(List.of(1L, 3L, 5L), ItemFacetIndex.page(index.select(filter), 0, 10));
+
+        filter.setTags(List.of("инструмент", "ремонт"));
+        filter.setAllTags(true);
+        assertEquals(List.of(5L), ItemFacetIndex.page(index.select(filter), 0, 10));
+
+        filter.setTags(List.of("нет такого"));
+        assertTrue(index.select(filter).isEmpty());
+    }
+
+    @Test
+    void countsFacetsOfSelection() {
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setTags(List.of("инструмент"));
+        ItemFacetsDto facets = index.count(index.select(filter));
+        assertEquals(3, facets.getTotal());
+        assertEquals(3, facets.getAvailable());
+        assertEquals(2, facets.getRequestLinked());
+        assertEquals(Map.of("инструмент", 3L, "электро", 1L, "ремонт", 1L), facets.getTags());
+        assertEquals(List.of(4L, 1L), List.copyOf(facets.getOwners().keySet()));
+        assertEquals(2L, facets.getOwners().get(4L));
+    }
+
+    @Test
+    void countsTopOwnersAfterReindex() {
+        for (long owner = 10; owner < 10 + ItemFacetIndex.MAX_OWNER_FACETS + 5; owner++) {
+            index.index(owner * 10, owner, false, false, Set.of());
+        }
+        index.index(2L, 3L, false, false, Set.of("мебель"));
+        ItemFacetsDto facets = index.count(index.select(new ItemFilterDto()));
+        assertEquals(ItemFacetIndex.MAX_OWNER_FACETS, facets.getOwners().size());
+        assertEquals(List.of(3L, 4L, 1L, 10L), List.copyOf(facets.getOwners().keySet()).subList(0, 4));
+        assertEquals(2L, facets.getOwners().get(3L));
+        assertEquals(3, facets.getAvailable());
+        assertEquals(Map.of("инструмент", 2L, "электро", 1L, "ремонт", 2L, "мебель", 2L), facets.getTags());
+    }
+
+    @Test
+    void reindexMovesItemBetweenFacets() {
+        index.index(2L, 3L, true, false, Set.of("Мебель"));
+        index.remove(4L);
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setTags(List.of("мебель"));
+        assertEquals(List.of(2L), ItemFacetIndex.page(index.select(filter), 0, 10));
+        assertEquals(List.of("мебель"), index.tagsOf(2L));
+        assertTrue(index.tagsOf(4L).isEmpty());
+
+        filter = new ItemFilterDto();
+        filter.setOwners(List.of(3L));
+        assertEquals(List.of(2L), ItemFacetIndex.page(index.select(filter), 0, 10));
+        filter.setOwners(List.of(4L));
+        assertEquals(List.of(3L, 5L), ItemFacetIndex.page(index.select(filter), 0, 10));
+    }
+
+    @Test
+    void indexesIdsBeyondIntRange() {
+        long bigId = Integer.MAX_VALUE + 10L;
+        index.index(bigId, 4L, false, true, Set.of("инструмент"));
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setOwners(List.of(4L));
+        filter.setTags(List.of("инструмент"));
+        assertEquals(List.of(2L, 5L, bigId), ItemFacetIndex.page(index.select(filter), 0, 10));
+
+        index.remove(bigId);
+        assertEquals(List.of(2L, 5L), ItemFacetIndex.page(index.select(filter), 0, 10));
+    }
+
+    @Test
+    void pageSkipsWholePages() {
+        ItemIdSet selection = index.select(new ItemFilterDto());
+        assertEquals(List.of(3L, 4L), ItemFacetIndex.page(selection, 2, 2));
+        assertEquals(List.of(3L, 4L), ItemFacetIndex.page(selection, 3, 2));
+        assertEquals(List.of(5L), ItemFacetIndex.page(selection, 4, 2));
+    }
+
+    private static ItemFacetRow buildRow(Long id, Long ownerId, Long requestId, boolean available) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("ownerId", ownerId);
+        row.put("requestId", requestId);
+        row.put("available", available);
+        return PROJECTIONS.createProjection(ItemFacetRow.class, row);
+    }
+
+    private static ItemTagRow buildTag(Long itemId, String tag) {
+        return PROJECTIONS.createProjection(ItemTagRow.class, Map.of("itemId", itemId, "tag", tag));
+    }
+}
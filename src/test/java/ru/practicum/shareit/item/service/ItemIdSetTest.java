@@ -0,0 +1,48 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemIdSetTest {
+
+    @Test
+    void keepsIdsSortedAndUnique() {
+        ItemIdSet ids = ItemIdSet.of(9L, 3L, Long.MAX_VALUE, 3L, 1L);
+        assertEquals(4, ids.size());
+        assertEquals(List.of(1L, 3L, 9L, Long.MAX_VALUE), ids.slice(0, 10));
+        ids.remove(3L);
+        ids.remove(4L);
+        assertFalse(ids.contains(3L));
+        assertEquals(List.of(9L, Long.MAX_VALUE), ids.slice(1, 10));
+    }
+
+    @Test
+    void combinesSets() {
+        ItemIdSet first = ItemIdSet.of(1L, 3L, 5L, 7L);
+        ItemIdSet second = ItemIdSet.of(3L, 4L, 7L, 8L);
+        assertEquals(List.of(3L, 7L), first.and(second).slice(0, 10));
+        assertEquals(List.of(1L, 3L, 4L, 5L, 7L, 8L), first.or(second).slice(0, 10));
+        assertEquals(List.of(1L, 5L), first.andNot(second).slice(0, 10));
+        assertEquals(2, first.intersectionSize(second));
+        assertTrue(first.and(new ItemIdSet()).isEmpty());
+    }
+
+    @Test
+    void shrinksAfterRemovals() {
+        ItemIdSet ids = new ItemIdSet();
+        for (long id = 1; id <= 100; id++) {
+            ids.add(id);
+        }
+        for (long id = 1; id <= 100; id++) {
+            ids.remove(id);
+        }
+        assertTrue(ids.isEmpty());
+        ids.add(42L);
+        assertEquals(List.of(42L), ids.slice(0, 10));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemImportReaderTest {
+
+    @Test
+    void readsNdjsonLineByLine() throws Exception {
+        ItemImportReader reader = new ItemImportReader(new StringReader(
+                "{\"name\":\"Дрель\",\"description\":\"Простая дрель\",\"available\":true,\"unknown\":1}\n"
+                        + "   \n"
+                        + "{\"name\":\n"), false);
+        ItemImportReader.Row first = reader.next();
+        assertEquals(1, first.getLine());
+        assertEquals("Дрель", first.getItem().getName());
+        assertTrue(first.getItem().getAvailable());
+        ItemImportReader.Row second = reader.next();
+        assertEquals(3, second.getLine());
+        assertNull(second.getItem());
+        assertTrue(second.getError().startsWith("Malformed JSON"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    void readsCsvByHeader() throws Exception {
+        ItemImportReader reader = new ItemImportReader(new StringReader(
+                "Tags,Name,Available,Description,RequestId\n"
+                        + "инструмент;ремонт,Дрель,true,\"Дрель \"\"Bosch\"\", ударная\",4\n"
+                        + ",Пила,false,Ручная пила,\n"), true);
+        ItemImportReader.Row first = reader.next();
+        assertEquals(2, first.getLine());
+        assertEquals("Дрель \"Bosch\", ударная", first.getItem().getDescription());
+        assertEquals(4L, first.getItem().getRequestId());
+        assertEquals(List.of("инструмент", "ремонт"), first.getItem().getTags());
+        ItemImportReader.Row second = reader.next();
+        assertFalse(second.getItem().getAvailable());
+        assertNull(second.getItem().getRequestId());
+        assertNull(second.getItem().getTags());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void reportsMalformedCsvRows() throws Exception {
+        ItemImportReader reader = new ItemImportReader(new StringReader(
+                "name,description,available,requestId\n"
+                        + "Дрель,\"не закрыто,true\n"
+                        + "Дрель,Простая,true,четыре\n"
+                        + "Дрель,Простая,true,4,лишнее\n"), true);
+        assertEquals("Malformed CSV row", reader.next().getError());
+        assertEquals("Column requestId must be a number", reader.next().getError());
+        assertEquals("Malformed CSV row", reader.next().getError());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void rejectsCsvWithoutNameColumn() {
+        ItemImportReader reader = new ItemImportReader(new StringReader("title,description\nДрель,Простая\n"), true);
+        assertThrows(IOException.class, reader::next);
+    }
+}
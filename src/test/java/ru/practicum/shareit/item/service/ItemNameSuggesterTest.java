@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.booking.model.ItemBookingCount;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemNameSuggesterTest {
+    private static final SpelAwareProxyProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private ItemNameSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(itemRepository.findSearchRowsAfter(eq(0L), any())).thenReturn(List.of(
+                buildRow(1L, "Дрель", true),
+                buildRow(2L, "Дрель ударная", true),
+                buildRow(3L, "Дрожжи", true),
+                buildRow(4L, "Древний стол", false),
+                buildRow(5L, "Пила", true)));
+        when(bookingRepository.countBookingsByItem()).thenReturn(List.of(
+                buildCount(2L, 5L),
+                buildCount(3L, 2L),
+                buildCount(4L, 9L),
+                buildCount(99L, 7L)));
+        suggester = new ItemNameSuggester(itemRepository, bookingRepository);
+        suggester.warmUp();
+    }
+
+    @Test
+    void suggestOrdersByPopularityAndSkipsUnavailable() {
+        assertEquals(List.of("Дрель ударная", "Дрожжи", "Дрель"), suggester.suggest("ДР", 10));
+        assertEquals(List.of("Дрель ударная", "Дрель"), suggester.suggest("дрель", 10));
+        assertEquals(List.of("Дрель ударная"), suggester.suggest("др", 1));
+        assertTrue(suggester.suggest("молоток", 10).isEmpty());
+        assertTrue(suggester.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void bookingsReorderSuggestions() {
+        for (int i = 0; i < 6; i++) {
+            suggester.recordBooking(1L);
+        }
+        assertEquals(List.of("Дрель", "Дрель ударная", "Дрожжи"), suggester.suggest("др", 10));
+    }
+
+    @Test
+    void itemWritesUpdateTrie() {
+        suggester.index(4L, "Древний стол", true);
+        suggester.index(3L, "Пиво", true);
+        suggester.remove(2L);
+
+        assertEquals(List.of("Древний стол", "Дрель"), suggester.suggest("др", 10));
+        assertEquals(List.of("Пиво", "Пила"), suggester.suggest("пи", 10));
+        suggester.index(1L, "Дрель", false);
+        assertEquals(List.of("Древний стол"), suggester.suggest("др", 10));
+    }
+
+    @Test
+    void sameNameIsSuggestedOnce() {
+        suggester.index(6L, "дрель", true);
+        suggester.recordBooking(6L);
+        assertEquals(List.of("Дрель ударная", "Дрожжи", "Дрель"), suggester.suggest("др", 10));
+        suggester.remove(1L);
+        assertEquals(List.of("Дрель ударная", "Дрожжи", "Дрель"), suggester.suggest("др", 10));
+    }
+
+    @Test
+    void prefixesInsideSharedEdgesAfterRemovals() {
+        assertEquals(List.of("Дрель ударная", "Дрель"), suggester.suggest("дрел", 10));
+        assertEquals(List.of("Дрель ударная"), suggester.suggest("дрель уд", 10));
+        assertTrue(suggester.suggest("дрелл", 10).isEmpty());
+
+        suggester.remove(2L);
+        assertEquals(List.of("Дрель"), suggester.suggest("дрель", 10));
+        assertTrue(suggester.suggest("дрель уд", 10).isEmpty());
+
+        suggester.remove(1L);
+        suggester.remove(3L);
+        assertTrue(suggester.suggest("д", 10).isEmpty());
+        assertEquals(List.of("Пила"), suggester.suggest("п", 10));
+
+        suggester.index(7L, "Дрель ударная", true);
+        assertEquals(List.of("Дрель ударная"), suggester.suggest("дрель", 10));
+    }
+
+    private static ItemSearchRow buildRow(Long id, String name, boolean available) {
+        return PROJECTIONS.createProjection(ItemSearchRow.class, Map.of("id", id, "name", name, "description", name, "available", available));
+    }
+
+    private static ItemBookingCount buildCount(Long itemId, Long total) {
+        return PROJECTIONS.createProjection(ItemBookingCount.class, Map.of("itemId", itemId, "total", total));
+    }
+}
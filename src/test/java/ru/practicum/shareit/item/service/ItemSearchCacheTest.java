@@ -0,0 +1,114 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ItemSearchCacheTest {
+    private final TestClock clock = new TestClock();
+    private final ItemSearchCache cache = new ItemSearchCache(1_000, Duration.ofMinutes(1), clock);
+
+    @Test
+    void samePageOfSameWordsHits() {
+        List<ItemDto> page = List.of(buildItemDto(1L, "Дрель", "Аккумуляторная дрель"));
+        cache.put("дрель аккумуляторная", 0, 10, page, cache.version());
+        assertEquals(page, cache.get("Аккумуляторная  ДРЕЛЬ", 3, 10));
+        assertNull(cache.get("дрель", 0, 10));
+        assertNull(cache.get("дрель аккумуляторная", 10, 10));
+        assertEquals(1.0 / 3, cache.hitRatio());
+    }
+
+    @Test
+    void writeDropsOnlyMatchingQueries() {
+        cache.put("дрель", 0, 10, List.of(buildItemDto(1L, "Дрель", "Ударная")), cache.version());
+        cache.put("стол", 0, 10, List.of(buildItemDto(4L, "Стол", "Кухонный")), cache.version());
+        cache.invalidate("Дрель-шуруповерт", null);
+        assertNull(cache.get("дрель", 0, 10));
+        assertNotNull(cache.get("стол", 0, 10));
+
+        cache.invalidate("Столик", "Кухонный");
+        assertNull(cache.get("стол", 0, 10));
+    }
+
+    @Test
+    void pageComputedAcrossWriteIsNotCached() {
+        long version = cache.version();
+        cache.invalidate("Отвертка", "Крестовая");
+        cache.put("отвертка", 0, 10, List.of(buildItemDto(2L, "Отвертка", "Плоская")), version);
+        assertNull(cache.get("отвертка", 0, 10));
+    }
+
+    @Test
+    void entriesExpire() {
+        cache.put("дрель", 0, 10, List.of(buildItemDto(1L, "Дрель", "Ударная")), cache.version());
+        clock.advance(Duration.ofMinutes(1));
+        assertNull(cache.get("дрель", 0, 10));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEvictedByWeight() {
+        String description = "x".repeat(300);
+        cache.put("a", 0, 10, List.of(buildItemDto(1L, "a", description)), cache.version());
+        cache.put("b", 0, 10, List.of(buildItemDto(2L, "b", description)), cache.version());
+        cache.get("a", 0, 10);
+        cache.put("c", 0, 10, List.of(buildItemDto(3L, "c", description)), cache.version());
+        assertNotNull(cache.get("a", 0, 10));
+        assertNull(cache.get("b", 0, 10));
+        assertNotNull(cache.get("c", 0, 10));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2 * (ItemSearchCache.ENTRY_OVERHEAD + 301), cache.weight());
+    }
+
+    @Test
+    void exportsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.get("дрель", 0, 10);
+        assertEquals(1.0, registry.get("items.search.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(0.0, registry.get("items.search.cache.hit.ratio").gauge().value());
+    }
+
+    private static ItemDto buildItemDto(Long id, String name, String description) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(id);
+        itemDto.setName(name);
+        itemDto.setDescription(description);
+        itemDto.setAvailable(true);
+        return itemDto;
+    }
+
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2023-04-03T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemSearchIndexTest {
+
+    private ItemRepository itemRepository;
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findSearchRowsAfter(eq(0L), any())).thenReturn(List.of(
+                buildRow(1L, "Дрель", "Простая дрель", true),
+                buildRow(2L, "Отвертка", "Аккумуляторная отвертка, дрель не нужна", true),
+                buildRow(3L, "Аккумуляторная дрель", "Дрель с аккумулятором", true),
+                buildRow(4L, "Дрель ударная", "Сломана", false)));
+        when(itemRepository.findSearchRowsAfter(eq(4L), any())).thenReturn(List.of());
+        index = new ItemSearchIndex(itemRepository);
+        index.warmUp();
+    }
+
+    @Test
+    void searchRanksNameMatchesFirstAndSkipsUnavailable() {
+        assertEquals(List.of(1L, 3L, 2L), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    void searchMatchesPrefixesOfAllWords() {
+        assertEquals(List.of(3L, 2L), index.search("АККУМ дре", 0, 10));
+        assertEquals(List.of(2L), index.search("отв", 0, 10));
+        assertTrue(index.search("дрель пила", 0, 10).isEmpty());
+        assertTrue(index.search(" ,. ", 0, 10).isEmpty());
+    }
+
+    @Test
+    void searchPages() {
+        assertEquals(List.of(1L, 3L), index.search("дрель", 0, 2));
+        assertEquals(List.of(2L), index.search("дрель", 2, 2));
+    }
+
+    @Test
+    void indexAndRemoveAreIncremental() {
+        index.index(5L, "Пила", "Дружба", true);
+        index.index(1L, "Молоток", "Простой", true);
+        index.remove(2L);
+
+        assertEquals(List.of(5L), index.search("дружба", 0, 10));
+        assertEquals(List.of(3L), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    void rebuildReloadsFromRepository() {
+        index.remove(1L);
+        assertEquals(4, index.rebuild());
+        assertEquals(List.of(1L, 3L, 2L), index.search("дрель", 0, 10));
+    }
+
+    private static ItemSearchRow buildRow(Long id, String name, String description, boolean available) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemSearchRow.class,
+                Map.of("id", id, "name", name, "description", description, "available", available));
+    }
+}
@@ -1,50 +1,89 @@
 package ru.practicum.shareit.item.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.invocation.InvocationOnMock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.NdjsonStreamWriter;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.dto.NearestBookings;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingTimelineCache;
+import ru.practicum.shareit.booking.service.CommentEligibility;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.UnauthorizedException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemFacetsDto;
+import ru.practicum.shareit.item.dto.ItemFilterDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportReportDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.model.CommentRow;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemCatalogRow;
+import ru.practicum.shareit.item.model.ItemCommentCount;
+import ru.practicum.shareit.item.model.ItemExportRow;
+import ru.practicum.shareit.item.model.ItemVersionRow;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestFeed;
+import ru.practicum.shareit.request.service.ItemRequestMatcher;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
-
+import ru.practicum.shareit.user.service.UserIdentityCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @AutoConfigureMockMvc
-@WebMvcTest({ItemServiceImpl.class, ItemRepository.class, BookingRepository.class, UserRepository.class, CommentRepository.class, ItemRequestRepository.class})
+@WebMvcTest({ItemServiceImpl.class, ItemRepository.class, BookingRepository.class, UserRepository.class, CommentRepository.class, ItemRequestRepository.class,
+        CommentEligibility.class, BookingIntervalIndex.class, BookingTimelineCache.class, ItemSearchIndex.class,
+        ItemNameSuggester.class, ItemFacetIndex.class, ItemSearchCache.class, NdjsonStreamWriter.class,
+        ItemRequestFeed.class, ItemRequestMatcher.class, UserIdentityCache.class})
 class ItemServiceImplTest extends BaseTest {
 
     @Autowired
     private ItemServiceImpl service;
+    @Autowired
+    private UserIdentityCache userIdentityCache;
     @MockBean
     ItemRepository repository;
     @MockBean
@@ -55,6 +94,31 @@ class ItemServiceImplTest extends BaseTest {
     private CommentRepository commentRepository;
     @MockBean
     private ItemRequestRepository itemRequestRepository;
+    @MockBean
+    private CommentEligibility commentEligibility;
+    @MockBean
+    private BookingIntervalIndex bookingIntervalIndex;
+    @MockBean
+    private BookingTimelineCache bookingTimelineCache;
+    @MockBean
+    private ItemSearchIndex itemSearchIndex;
+    @MockBean
+    private ItemNameSuggester itemNameSuggester;
+    @MockBean
+    private ItemFacetIndex itemFacetIndex;
+    @MockBean
+    private ItemSearchCache itemSearchCache;
+    @MockBean
+    private ItemRequestFeed itemRequestFeed;
+    @MockBean
+    private ItemRequestMatcher itemRequestMatcher;
+
+    private long savedId;
+
+    @AfterEach
+    void clearIdentityCache() {
+        userIdentityCache.clear();
+    }
 
     @ParameterizedTest
     @MethodSource("prepareDataForCreate")
@@ -78,6 +142,132 @@ class ItemServiceImplTest extends BaseTest {
         when(repository.save(any())).thenReturn(buildItem(2L, "name", "asdfg", true, user, itemRequest));
         ItemDto it = service.create(buildItemDto(2L, "name", "asdfgrt", true), 3L);
         assertEquals(2L, it.getId());
+        verify(itemSearchIndex, times(1)).index(2L, "name", "asdfg", true);
+        verify(itemNameSuggester, times(1)).index(2L, "name", true);
+        verify(itemFacetIndex, times(1)).index(2L, 3L, true, true, Set.of());
+        verify(itemRequestFeed, times(1)).itemSaved(any());
+        verify(itemRequestMatcher, times(1)).index(2L, 3L, "name", "asdfg");
+    }
+
+    @Test
+    void createNormalizesTags() throws Exception {
+        User user = buildUser(3L, "email@mail.com", "name");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ItemDto itemDto = buildItemDto(2L, "name", "asdfgrt", true);
+        itemDto.setTags(List.of(" Инструмент", "ремонт", "ИНСТРУМЕНТ", " "));
+        ItemDto it = service.create(itemDto, 3L);
+        assertEquals(List.of("инструмент", "ремонт"), it.getTags());
+        verify(itemFacetIndex, times(1)).index(2L, 3L, false, true, Set.of("инструмент", "ремонт"));
+    }
+
+    @Test
+    void createTagTooLong() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(3L, "email@mail.com", "name")));
+        ItemDto itemDto = buildItemDto(2L, "name", "asdfgrt", true);
+        itemDto.setTags(List.of("t".repeat(65)));
+        assertThrows(ValidationException.class, () -> service.create(itemDto, 3L));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void importItems() throws Exception {
+        User user = buildUser(3L, "email@mail.com", "name");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findAllById(any())).thenReturn(List.of(buildItemRequest(4L, user, "bavscd")));
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            List<Item> items = new ArrayList<>();
+            long id = 10L;
+            for (Item item : (Iterable<Item>) invocation.getArgument(0)) {
+                item.setId(id++);
+                items.add(item);
+            }
+            return items;
+        });
+        String body = "{\"name\":\"Дрель\",\"description\":\"Простая дрель\",\"available\":true,\"requestId\":4,\"tags\":[\"Инструмент\"]}\n"
+                + "\n"
+                + "{\"description\":\"Без имени\",\"available\":true}\n"
+                + "{\"name\":\"Отвертка\"\n"
+                + "{\"name\":\"Пила\",\"description\":\"Ручная пила\",\"available\":false,\"requestId\":99}\n";
+        ItemImportReportDto report = service.importItems(3L, new StringReader(body), false);
+        assertEquals(4, report.getTotal());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(3L, 4L), report.getErrors().stream().map(ItemImportErrorDto::getLine).collect(Collectors.toList()));
+        verify(repository, times(1)).saveAll(any());
+        verify(itemRequestRepository, times(1)).findAllById(Set.of(4L, 99L));
+        verify(itemFacetIndex, times(1)).index(10L, 3L, true, true, Set.of("инструмент"));
+        verify(itemFacetIndex, times(1)).index(11L, 3L, false, false, Set.of());
+        verify(itemSearchIndex, times(1)).index(11L, "Пила", "Ручная пила", false);
+        verify(itemSearchCache, times(1)).invalidate("Дрель", "Простая дрель", "Пила", "Ручная пила");
+    }
+
+    @Test
+    void importItemsSavesInBatches() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(3L, "email@mail.com", "name")));
+        when(repository.saveAll(any())).thenAnswer(this::saveWithIds);
+        StringBuilder body = new StringBuilder("name,description,available\n");
+        for (int i = 0; i < 501; i++) {
+            body.append("item").append(i).append(",\"desc, ").append(i).append("\",true\n");
+        }
+        ItemImportReportDto report = service.importItems(3L, new StringReader(body.toString()), true);
+        assertEquals(501, report.getImported());
+        verify(repository, times(2)).saveAll(any());
+        verify(itemRequestRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void importItemsBatchFailure() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(3L, "email@mail.com", "name")));
+        when(repository.saveAll(any())).thenThrow(new DataIntegrityViolationException("too long"));
+        String body = "name,description,available\nДрель,Простая дрель,true\nПила,Ручная пила,yes\n";
+        ItemImportReportDto report = service.importItems(3L, new StringReader(body), true);
+        assertEquals(2, report.getTotal());
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals("Column available must be true or false", report.getErrors().get(0).getError());
+        assertEquals(2L, report.getErrors().get(1).getLine());
+        verifyNoInteractions(itemSearchIndex, itemSearchCache);
+    }
+
+    @Test
+    void importItemsUnreadableBodyKeepsReport() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(3L, "email@mail.com", "name")));
+        when(repository.saveAll(any())).thenAnswer(this::saveWithIds);
+        Reader body = new FilterReader(new StringReader("{\"name\":\"Дрель\",\"description\":\"Простая дрель\",\"available\":true}\n")) {
+            private boolean consumed;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (consumed) {
+                    throw new IOException("Connection reset");
+                }
+                consumed = true;
+                return super.read(buffer, offset, length);
+            }
+        };
+        ItemImportReportDto report = service.importItems(3L, body, false);
+        assertEquals(2, report.getTotal());
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2L, report.getErrors().get(0).getLine());
+        assertEquals("Unreadable import body: Connection reset", report.getErrors().get(0).getError());
+        verify(repository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void importItemsCsvWithoutNameColumn() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(3L, "email@mail.com", "name")));
+        ItemImportReportDto report = service.importItems(3L, new StringReader("description,available\nПростая дрель,true\n"), true);
+        assertEquals(0, report.getImported());
+        assertEquals(1L, report.getErrors().get(0).getLine());
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void importItemsUserNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> service.importItems(3L, new StringReader(""), false));
     }
 
     @Test
@@ -112,6 +302,23 @@ class ItemServiceImplTest extends BaseTest {
         when(repository.save(any())).thenReturn(buildItem(2L, "name", "asdfg", true, user, null));
         ItemDto updated = service.update(3L, buildItemDto(1L, "name", "abcde", true), 2L);
         assertEquals(2L, updated.getId());
+        verify(itemSearchIndex, times(1)).index(2L, "name", "asdfg", true);
+        verify(itemNameSuggester, times(1)).index(2L, "name", true);
+        verify(itemFacetIndex, times(1)).index(2L, 2L, false, true, Set.of());
+        verify(itemSearchCache, times(1)).invalidate("item", "description", "name", "asdfg");
+    }
+
+    @Test
+    void updateTagsOnlyInvalidatesSearchCache() throws Exception {
+        User user = buildUser(2L, "email@mail.com", "name");
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(repository.findById(anyLong())).thenReturn(Optional.of(buildItem(2L, "item", "description", true, user, null)));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemFacetIndex.tagsOf(2L)).thenReturn(List.of("ремонт"));
+        ItemDto itemDto = new ItemDto();
+        itemDto.setTags(List.of("Инструмент"));
+        service.update(2L, itemDto, 2L);
+        verify(itemSearchCache, times(1)).invalidate("item", "description", "item", "description");
     }
 
     @Test
@@ -124,6 +331,14 @@ class ItemServiceImplTest extends BaseTest {
         doNothing().when(repository).deleteById(anyLong());
         ItemDto deleted = service.delete(3L, 2L);
         assertEquals(2L, deleted.getId());
+        verify(itemSearchIndex, times(1)).remove(3L);
+        verify(itemNameSuggester, times(1)).remove(3L);
+        verify(itemFacetIndex, times(1)).remove(3L);
+        verify(itemSearchCache, times(1)).invalidate("item", "description");
+        verify(itemRequestFeed, times(1)).itemRemoved(any());
+        verify(itemRequestMatcher, times(1)).remove(3L);
+        verify(bookingIntervalIndex, times(1)).removeItem(3L);
+        verify(bookingTimelineCache, times(1)).removed(3L);
     }
 
     @Test
@@ -171,6 +386,7 @@ class ItemServiceImplTest extends BaseTest {
         when(repository.findById(anyLong())).thenReturn(
                 Optional.of(buildItem(2L, "item", "description", true,
                         user, null)));
+        when(bookingTimelineCache.nearest(eq(List.of(2L)), any())).thenReturn(Map.of(2L, new NearestBookings(null, null)));
         ItemDto itemDto = service.getById(3L, 2L);
         assertEquals(2L, itemDto.getId());
         assertNull(itemDto.getNextBooking());
@@ -184,14 +400,12 @@ class ItemServiceImplTest extends BaseTest {
         Item item = buildItem(2L, "item", "description", true, user, null);
         when(repository.findById(anyLong())).thenReturn(
                 Optional.of(item));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc(anyList(), any(), any())).thenReturn(List.of(
-                buildBooking(2L, buildItem(1L, "abc", "def", true, user, null),
-                        user, LocalDateTime.now(), LocalDateTime.now(), BookingState.APPROVED)));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartAfterOrderByStart(anyList(), any(), any())).thenReturn(List.of(
-                buildBooking(8L, buildItem(7L, "abc", "def", true, user, null),
-                        user, LocalDateTime.now(), LocalDateTime.now(), BookingState.APPROVED)
-        ));
-        ItemDto itemDto = service.getById(3L, 2L);
+        when(bookingTimelineCache.nearest(eq(List.of(2L)), any())).thenReturn(Map.of(2L, new NearestBookings(
+                buildBookingDto(2L, 2L, 2L, LocalDateTime.now(), LocalDateTime.now(), BookingState.APPROVED),
+                buildBookingDto(8L, 2L, 2L, LocalDateTime.now(), LocalDateTime.now(), BookingState.APPROVED))));
+        when(itemFacetIndex.tagsOf(2L)).thenReturn(List.of("инструмент"));
+        ItemDto itemDto = service.getById(2L, 2L);
+        assertEquals(List.of("инструмент"), itemDto.getTags());
         assertNotNull(itemDto.getNextBooking());
         assertNotNull(itemDto.getLastBooking());
         assertEquals(8L, itemDto.getNextBooking().getId());
@@ -205,77 +419,107 @@ class ItemServiceImplTest extends BaseTest {
         Item item = buildItem(2L, "item", "description", true, user, null);
         when(repository.findById(anyLong())).thenReturn(
                 Optional.of(item));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc(anyList(), any(), any())).thenReturn(new ArrayList<>());
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartAfterOrderByStart(anyList(), any(), any())).thenReturn(new ArrayList<>());
+        when(bookingTimelineCache.nearest(eq(List.of(2L)), any())).thenReturn(Map.of(2L, new NearestBookings(null, null)));
         ItemDto itemDto = service.getById(3L, 2L);
         assertNull(itemDto.getNextBooking());
         assertNull(itemDto.getLastBooking());
     }
 
     @Test
-    void getAll() {
-        User user1 = buildUser(2L, "email", "name");
-        User user2 = buildUser(3L, "email", "name");
-        User user3 = buildUser(4L, "email", "name");
-        Item e1 = buildItem(2L, "item", "description", true, user1, null);
-        Item e2 = buildItem(3L, "item", "description", true, user1, null);
-        Item e3 = buildItem(4L, "item", "description", true, user1, null);
-        Item e4 = buildItem(5L, "item", "description", true, user1, null);
-        Item e5 = buildItem(6L, "item", "description", true, user1, null);
-        when(repository.findAllByOwnerId(anyLong(), any())).thenReturn(new PageImpl<>(List.of(e1, e2, e3, e4, e5)));
-        when(bookingRepository.findAllByItemIdInAndStatusAndEndBeforeOrStartBeforeAndEndAfter(anyList(), any(), any(), any(), any())).thenReturn(List.of(
-                buildBooking(4L, e1, user2, getDateFromString("2023-04-02 12:00:00"), getDateFromString("2023-04-03 12:00:00"), BookingState.APPROVED),
-                buildBooking(6L, e2, user2, getDateFromString("2023-04-03 12:00:00"), getDateFromString("2023-04-04 12:00:00"), BookingState.APPROVED),
-                buildBooking(7L, e3, user3, getDateFromString("2023-04-05 12:00:00"), getDateFromString("2023-04-12 12:00:00"), BookingState.APPROVED),
-                buildBooking(8L, e4, user3, getDateFromString("2023-04-04 12:00:00"), getDateFromString("2023-04-25 12:00:00"), BookingState.APPROVED),
-                buildBooking(9L, e5, user3, getDateFromString("2023-04-03 12:00:00"), getDateFromString("2023-04-08 12:00:00"), BookingState.APPROVED)
-        ));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartAfter(anyList(), any(), any())).thenReturn(List.of(
-                buildBooking(14L, e1, user2, getDateFromString("2023-04-08 12:00:00"), getDateFromString("2023-04-13 12:00:00"), BookingState.APPROVED),
-                buildBooking(16L, e2, user2, getDateFromString("2023-04-09 12:00:00"), getDateFromString("2023-04-14 12:00:00"), BookingState.APPROVED),
-                buildBooking(17L, e3, user3, getDateFromString("2023-04-10 12:00:00"), getDateFromString("2023-04-12 12:00:00"), BookingState.APPROVED),
-                buildBooking(18L, e4, user3, getDateFromString("2023-04-14 12:00:00"), getDateFromString("2023-04-25 12:00:00"), BookingState.APPROVED),
-                buildBooking(19L, e5, user3, getDateFromString("2023-04-23 12:00:00"), getDateFromString("2023-04-24 12:00:00"), BookingState.APPROVED)
-        ));
+    void getETag() {
+        Map<String, Object> version = new HashMap<>();
+        version.put("version", 3L);
+        version.put("ownerId", 4L);
+        version.put("commentsCount", 0L);
+        version.put("lastCommentId", null);
+        version.put("commentAuthorsVersion", 0L);
+        when(repository.findVersionById(2L)).thenReturn(Optional.of(
+                new SpelAwareProxyProjectionFactory().createProjection(ItemVersionRow.class, version)));
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "email@mail.com", "name")));
+        when(bookingTimelineCache.nearest(eq(List.of(2L)), any())).thenReturn(Map.of(2L,
+                new NearestBookings(buildBookingDto(6L, 2L, 1L, null, null, BookingState.APPROVED), null)));
 
-        List<ItemDto> items = service.getAll(2L, 0, 10);
+        assertEquals("W/\"2-3-0-null-0\"", service.getETag(2L, 1L));
+        assertEquals("W/\"2-3-0-null-0-owner-6-null\"", service.getETag(2L, 4L));
+        assertNull(service.getETag(5L, 4L));
+        verify(repository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getAll() {
+        when(repository.findOwnerCatalog(eq(2L), any(), eq(10), eq(10))).thenReturn(List.of(
+                buildCatalogRow(2L, 4L, 14L),
+                buildCatalogRow(3L, 6L, 16L),
+                buildCatalogRow(4L, 7L, 17L)));
+        when(commentRepository.findLatestByItemIdIn(List.of(2L, 3L, 4L), ItemServiceImpl.EMBEDDED_COMMENTS))
+                .thenReturn(List.of(buildCommentRow(1L, 2L)));
+        when(commentRepository.countByItemIdIn(List.of(2L, 3L, 4L))).thenReturn(List.of(buildCommentCount(2L, 25L)));
+
+        List<ItemDto> items = service.getAll(2L, 15, 10);
+        assertEquals(3, items.size());
         assertEquals(4L, items.get(0).getLastBooking().getId());
         assertEquals(14L, items.get(0).getNextBooking().getId());
+        assertEquals(2L, items.get(0).getNextBooking().getItemId());
+        assertEquals(1, items.get(0).getComments().size());
+        assertEquals(25L, items.get(0).getCommentsCount());
 
         assertEquals(6L, items.get(1).getLastBooking().getId());
         assertEquals(16L, items.get(1).getNextBooking().getId());
+        assertTrue(items.get(1).getComments().isEmpty());
+        assertEquals(0L, items.get(1).getCommentsCount());
 
         assertEquals(7L, items.get(2).getLastBooking().getId());
         assertEquals(17L, items.get(2).getNextBooking().getId());
-
-        assertEquals(8L, items.get(3).getLastBooking().getId());
-        assertEquals(18L, items.get(3).getNextBooking().getId());
-
-        assertEquals(9L, items.get(4).getLastBooking().getId());
-        assertEquals(19L, items.get(4).getNextBooking().getId());
     }
 
     @Test
     void getAllEmptyLastAndNext() {
-        LocalDateTime now = LocalDateTime.now();
-        User user1 = buildUser(2L, "email", "name");
-        User user2 = buildUser(3L, "email", "name");
-        Item e1 = buildItem(2L, "item", "description", true, user1, null);
-        Item e2 = buildItem(3L, "item", "description", true, user1, null);
-
-        when(repository.findAllByOwnerId(anyLong(), any())).thenReturn(new PageImpl<>(List.of(e1, e2)));
-        when(bookingRepository.findAllByItemIdInAndStatusAndEndBeforeOrStartBeforeAndEndAfter(anyList(), any(), any(), any(), any())).thenReturn(List.of(
-                buildBooking(6L, e2, user2, now.minusDays(3), now.minusDays(2), BookingState.APPROVED)
-        ));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartAfter(anyList(), any(), any())).thenReturn(List.of(
-                buildBooking(4L, e2, user2, now.plusDays(2), now.plusDays(7), BookingState.APPROVED)
-        ));
+        when(repository.findOwnerCatalog(eq(2L), any(), eq(10), eq(0))).thenReturn(List.of(
+                buildCatalogRow(2L, null, null),
+                buildCatalogRow(3L, 6L, null)));
 
         List<ItemDto> items = service.getAll(2L, 0, 10);
-        assertEquals(6L, items.get(1).getLastBooking().getId());
-        assertEquals(4L, items.get(1).getNextBooking().getId());
         assertNull(items.get(0).getLastBooking());
         assertNull(items.get(0).getNextBooking());
+        assertEquals(6L, items.get(1).getLastBooking().getId());
+        assertNull(items.get(1).getNextBooking());
+    }
+
+    @Test
+    void getAllNoItems() {
+        when(repository.findOwnerCatalog(eq(2L), any(), eq(10), eq(0))).thenReturn(List.of());
+
+        assertTrue(service.getAll(2L, 0, 10).isEmpty());
+        verify(commentRepository, never()).findLatestByItemIdIn(anyCollection(), anyInt());
+    }
+
+    @Test
+    void export() throws Exception {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(4L, "email@mail.com", "name")));
+        Map<String, Object> unlinked = new HashMap<>(Map.of("id", 2L, "name", "Отвертка", "description", "Отвертка крестовая", "available", true));
+        unlinked.put("requestId", null);
+        SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+        when(repository.streamAllByOwnerId(4L)).thenReturn(Stream.of(
+                factory.createProjection(ItemExportRow.class, Map.of("id", 1L, "name", "Дрель", "description", "Простая дрель",
+                        "available", true, "requestId", 3L)),
+                factory.createProjection(ItemExportRow.class, unlinked)));
+        when(itemFacetIndex.tagsOf(1L)).thenReturn(List.of("инструмент"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(4L).writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"requestId\":3"));
+        assertTrue(lines[0].contains("\"tags\":[\"инструмент\"]"));
+        assertTrue(lines[1].contains("\"name\":\"Отвертка\""));
+        verify(repository, never()).findOwnerCatalog(anyLong(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void exportUserNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> service.export(4L));
+        verify(repository, never()).streamAllByOwnerId(anyLong());
     }
 
     @Test
@@ -283,9 +527,60 @@ class ItemServiceImplTest extends BaseTest {
         User user = buildUser(2L, "email", "name");
         Item e1 = buildItem(2L, "item", "description", true, user, null);
         Item e5 = buildItem(6L, "item", "description", true, user, null);
-        when(repository.findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrue(anyString(), anyString(), any())).thenReturn(new PageImpl<>(List.of(e1, e5)));
+        when(itemSearchCache.get("description", 0, 15)).thenReturn(null);
+        when(itemSearchCache.version()).thenReturn(7L);
+        when(itemSearchIndex.search("description", 0, 15)).thenReturn(List.of(6L, 2L, 9L));
+        when(repository.findAllById(List.of(6L, 2L, 9L))).thenReturn(List.of(e1, e5));
         List<ItemDto> items = service.search("description", 0, 15);
         assertEquals(2, items.size());
+        assertEquals(6L, items.get(0).getId());
+        assertEquals(2L, items.get(1).getId());
+        verify(itemSearchCache, times(1)).put("description", 0, 15, items, 7L);
+    }
+
+    @Test
+    void searchFromCache() {
+        List<ItemDto> cached = List.of(buildItemDto(2L, "item", "description", true));
+        when(itemSearchCache.get("description", 0, 15)).thenReturn(cached);
+        assertEquals(cached, service.search("description", 0, 15));
+        verify(itemSearchIndex, never()).search(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchNoHits() {
+        when(itemSearchIndex.search(anyString(), anyInt(), anyInt())).thenReturn(List.of());
+        assertTrue(service.search("nothing", 0, 15).isEmpty());
+        verify(repository, never()).findAllById(any());
+    }
+
+    @Test
+    void filter() {
+        User user = buildUser(2L, "email", "name");
+        ItemFilterDto filter = new ItemFilterDto();
+        filter.setAvailable(true);
+        ItemIdSet selection = ItemIdSet.of(2L, 6L, 9L);
+        ItemFacetsDto facets = new ItemFacetsDto();
+        facets.setTotal(3);
+        when(itemFacetIndex.select(filter)).thenReturn(selection);
+        when(itemFacetIndex.count(selection)).thenReturn(facets);
+        when(repository.findAllById(List.of(2L, 6L))).thenReturn(List.of(buildItem(6L, "item", "description", true, user, null)));
+        ItemFacetsDto result = service.filter(filter, 0, 2);
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getItems().size());
+        assertEquals(6L, result.getItems().get(0).getId());
+    }
+
+    @Test
+    void suggestCapsSize() {
+        when(itemNameSuggester.suggest("дре", ItemNameSuggester.MAX_SUGGESTIONS)).thenReturn(List.of("Дрель"));
+        assertEquals(List.of("Дрель"), service.suggest("дре", 50));
+    }
+
+    @Test
+    void rebuildSearchIndex() {
+        when(itemSearchIndex.rebuild()).thenReturn(5);
+        assertEquals(5, service.rebuildSearchIndex());
+        verify(itemSearchCache, times(1)).clear();
     }
 
     @ParameterizedTest
@@ -326,12 +621,40 @@ class ItemServiceImplTest extends BaseTest {
         Item item = buildItem(2L, "item", "description", true, user, null);
         when(repository.findById(anyLong())).thenReturn(
                 Optional.of(item));
-        when(bookingRepository.findAllByBookerId(anyLong())).thenReturn(List.of(
-                buildBooking(2L, item, user, LocalDateTime.now().minusDays(3), LocalDateTime.now().plusDays(5), BookingState.APPROVED)
-        ));
+        when(commentEligibility.canComment(anyLong(), anyLong(), any())).thenReturn(true);
         when(commentRepository.save(any())).thenReturn(buildComment(2L, "text", LocalDateTime.now(), "name", user));
         CommentDto commentDto = service.addComment(2L, 2L, buildCommentDto(1L, "text", LocalDateTime.now(), "name"));
         assertEquals(2L, commentDto.getId());
+        verify(commentEligibility, times(1)).canComment(eq(2L), eq(2L), any());
+        verify(bookingRepository, never()).existsByBookerIdAndItemIdAndStatusAndStartBefore(anyLong(), anyLong(), any(), any());
+        verify(itemSearchCache, times(1)).invalidate("item", "description");
+    }
+
+    @Test
+    void getComments() throws Exception {
+        when(repository.existsById(2L)).thenReturn(true);
+        when(commentRepository.findItemPageBefore(2L, Long.MAX_VALUE, PageRequest.of(0, 3))).thenReturn(List.of(
+                buildCommentRow(9L, 2L), buildCommentRow(7L, 2L), buildCommentRow(4L, 2L)));
+        CommentPageDto page = service.getComments(2L, null, 2);
+        assertEquals(2, page.getComments().size());
+        assertEquals(7L, page.getComments().get(1).getId());
+        assertNotNull(page.getNextCursor());
+
+        when(commentRepository.findItemPageBefore(2L, 7L, PageRequest.of(0, 3))).thenReturn(List.of(buildCommentRow(4L, 2L)));
+        CommentPageDto last = service.getComments(2L, page.getNextCursor(), 2);
+        assertEquals(1, last.getComments().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void getCommentsItemNotFound() {
+        when(repository.existsById(anyLong())).thenReturn(false);
+        assertThrows(ItemNotFoundException.class, () -> service.getComments(99L, null, 10));
+    }
+
+    @Test
+    void getCommentsInvalidCursor() {
+        assertThrows(ValidationException.class, () -> service.getComments(2L, "not a cursor", 10));
     }
 
     @Test
@@ -341,10 +664,9 @@ class ItemServiceImplTest extends BaseTest {
         Item item = buildItem(2L, "item", "description", true, user, null);
         when(repository.findById(anyLong())).thenReturn(
                 Optional.of(item));
-        when(bookingRepository.findAllByBookerId(anyLong())).thenReturn(List.of(
-                buildBooking(2L, item, user, LocalDateTime.now().minusDays(3), LocalDateTime.now().plusDays(5), BookingState.WAITING)
-        ));
+        when(commentEligibility.canComment(anyLong(), anyLong(), any())).thenReturn(false);
         assertThrows(ValidationException.class, () -> service.addComment(2L, 2L, buildCommentDto(1L, "text", LocalDateTime.now(), "nmae")));
+        verify(commentRepository, never()).save(any());
     }
 
     @Test
@@ -354,16 +676,79 @@ class ItemServiceImplTest extends BaseTest {
         Item item = buildItem(5L, "item", "description", true, user, null);
         when(repository.findById(anyLong())).thenReturn(
                 Optional.of(item));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartBeforeOrderByStartDesc(anyList(), any(), any())).thenReturn(List.of(
-                buildBooking(2L, buildItem(1L, "abc", "def", true, user, null),
-                        user, LocalDateTime.now(), LocalDateTime.now(), BookingState.APPROVED)));
-        when(bookingRepository.findAllByItemIdInAndStatusAndStartAfterOrderByStart(anyList(), any(), any())).thenReturn(List.of(
-                buildBooking(8L, buildItem(7L, "abc", "def", true, user, null),
-                        user, LocalDateTime.now(), LocalDateTime.now(), BookingState.APPROVED)
-        ));
         ItemDto itemDto = service.getById(3L, 8L);
         assertNull(itemDto.getNextBooking());
         assertNull(itemDto.getLastBooking());
+        verify(bookingTimelineCache, never()).nearest(anyCollection(), any());
+    }
+
+    @Test
+    void getAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        when(bookingIntervalIndex.tracks(2L)).thenReturn(true);
+        when(bookingIntervalIndex.busy(2L, from, to)).thenReturn(List.of(
+                new TimeSlotDto(from.plusDays(1), from.plusDays(2)),
+                new TimeSlotDto(from.plusDays(3), from.plusDays(4))));
+        when(bookingIntervalIndex.nextFree(2L, from, Duration.ofDays(2))).thenReturn(from.plusDays(4));
+
+        ItemAvailabilityDto availability = service.getAvailability(2L, from, to, Duration.ofDays(2));
+
+        assertEquals(List.of(new TimeSlotDto(from, from.plusDays(1)),
+                new TimeSlotDto(from.plusDays(2), from.plusDays(3)),
+                new TimeSlotDto(from.plusDays(4), to)), availability.getFree());
+        assertEquals(new TimeSlotDto(from.plusDays(4), from.plusDays(6)), availability.getNextFreeWindow());
+        verify(repository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void getAvailabilityItemNotFound() {
+        when(bookingIntervalIndex.tracks(anyLong())).thenReturn(false);
+        when(repository.existsById(anyLong())).thenReturn(false);
+        assertThrows(ItemNotFoundException.class, () -> service.getAvailability(99L, null, LocalDateTime.now().plusDays(1), null));
+    }
+
+    @Test
+    void getAvailabilityNotValid() {
+        LocalDateTime from = LocalDateTime.now().plusDays(2);
+        assertThrows(ValidationException.class, () -> service.getAvailability(2L, from, from.minusDays(1), null));
+        assertThrows(ValidationException.class, () -> service.getAvailability(2L, from, from.plusDays(1), Duration.ZERO));
+    }
+
+    private static ItemCatalogRow buildCatalogRow(Long id, Long lastId, Long nextId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", "item");
+        row.put("description", "description");
+        row.put("available", true);
+        row.put("lastId", lastId);
+        row.put("lastBookerId", lastId == null ? null : 3L);
+        row.put("nextId", nextId);
+        row.put("nextBookerId", nextId == null ? null : 3L);
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemCatalogRow.class, row);
+    }
+
+    private static CommentRow buildCommentRow(Long id, Long itemId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("itemId", itemId);
+        row.put("text", "comment" + id);
+        row.put("authorName", "name");
+        row.put("created", LocalDateTime.now());
+        return new SpelAwareProxyProjectionFactory().createProjection(CommentRow.class, row);
+    }
+
+    private static ItemCommentCount buildCommentCount(Long itemId, Long total) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemCommentCount.class, Map.of("itemId", itemId, "total", total));
+    }
+
+    private List<Item> saveWithIds(InvocationOnMock invocation) {
+        List<Item> items = new ArrayList<>();
+        for (Item item : (Iterable<Item>) invocation.getArgument(0)) {
+            item.setId(++savedId);
+            items.add(item);
+        }
+        return items;
     }
 
     private static Stream<Arguments> prepareDataForCreate() {
@@ -14,13 +14,18 @@ import ru.practicum.shareit.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -140,6 +145,42 @@ class ItemRequestControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.description").value("Хотел бы воспользоваться мясорубкой"));
     }
 
+    @Test
+    void getItemRequestNotModified() throws Exception {
+        when(service.getETag(2L, 1L)).thenReturn("W/\"1-0-2-7-5\"");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/1")
+                        .header(xShareUserId, 2)
+                        .header("If-None-Match", "W/\"1-0-2-7-5\""))
+                .andExpect(status().isNotModified());
+        verify(service, never()).getById(anyLong(), anyLong());
+    }
+
+    @Test
+    void getItemRequestChanged() throws Exception {
+        when(service.getETag(2L, 1L)).thenReturn("W/\"1-1-2-7-5\"");
+        when(service.getById(2L, 1L)).thenReturn(buildItemRequestDto(1L, 2L, "Хотел бы воспользоваться мясорубкой"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/1")
+                        .header(xShareUserId, 2)
+                        .header("If-None-Match", "W/\"1-0-2-7-5\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void getInbox() throws Exception {
+        when(service.getInbox(9L)).thenReturn(List.of(buildItemRequestDto(4L, 7L, "Хотел бы воспользоваться бензопилой")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/inbox")
+                        .header(xShareUserId, 9))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[0].requester").value(7));
+        verify(service, never()).getById(anyLong(), anyLong());
+    }
+
     @Test
     void getAllItemRequests() throws Exception {
         ItemRequestDto ir1 = buildItemRequestDto(2L, 7L, "Хотел бы воспользоваться мясорубкой");
@@ -164,6 +205,45 @@ class ItemRequestControllerTest extends BaseTest {
                 .andExpect(jsonPath("$[1].description").value("Хотел бы воспользоваться бензопилой"));
     }
 
+    @Test
+    void getAllItemRequestsWithCursor() throws Exception {
+        ItemRequestPageDto page = new ItemRequestPageDto();
+        page.setRequests(List.of(buildItemRequestDto(2L, 7L, "Хотел бы воспользоваться мясорубкой")));
+        page.setNextCursor("next");
+        when(service.getAllUserRequestsAfter(2L, "", 20)).thenReturn(page);
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/all")
+                        .param("cursor", "")
+                        .header(xShareUserId, 2))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(jsonPath("$[0].id").value(2));
+        verify(service, never()).getAllUserRequests(anyLong(), any(), any());
+    }
+
+    @Test
+    void getAllItemRequestsWithCursorSizeIsClamped() throws Exception {
+        ItemRequestPageDto page = new ItemRequestPageDto();
+        page.setRequests(List.of());
+        when(service.getAllUserRequestsAfter(2L, "", 100)).thenReturn(page);
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/all")
+                        .param("cursor", "")
+                        .param("size", String.valueOf(Integer.MAX_VALUE))
+                        .header(xShareUserId, 2))
+                .andExpect(status().isOk());
+        verify(service, times(1)).getAllUserRequestsAfter(2L, "", 100);
+    }
+
+    @Test
+    void getAllItemRequestsLegacySizeIsNotCapped() throws Exception {
+        when(service.getAllUserRequests(2L, 0, 500)).thenReturn(List.of());
+        mockMvc.perform(MockMvcRequestBuilders.get("/requests/all")
+                        .param("from", "0")
+                        .param("size", "500")
+                        .header(xShareUserId, 2))
+                .andExpect(status().isOk());
+        verify(service, times(1)).getAllUserRequests(2L, 0, 500);
+    }
+
     @Test
     void getAllItemRequestsUserNotFound() throws Exception {
         when(service.getAllUserRequests(anyLong(), anyInt(), anyInt())).thenThrow(new UserNotFoundException("User not found"));
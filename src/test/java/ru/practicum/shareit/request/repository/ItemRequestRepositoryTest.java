@@ -4,12 +4,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.TimeIdCursor;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestVersionRow;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,8 +25,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @Sql("/data.sql")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class ItemRequestRepositoryTest extends BaseTest {
+    private static final TimeIdCursor FIRST = TimeIdCursor.first();
+
     @Autowired
     private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
 
     @Test
@@ -33,14 +41,42 @@ class ItemRequestRepositoryTest extends BaseTest {
     }
 
     @Test
-    void findAllByRequesterIdNotOrderByCreatedDesc() {
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequesterIdNotOrderByCreatedDesc(1L,
-                PageRequest.of(0, 10)).getContent();
+    void findFeedPageBeforeFirstPage() {
+        List<ItemRequest> itemRequests = itemRequestRepository.findFeedPageBefore(1L, FIRST.getTime(), FIRST.getId(),
+                PageRequest.of(0, 10));
         assertEquals(2, itemRequests.size());
         assertEquals(2, itemRequests.get(0).getId());
         assertEquals(3, itemRequests.get(1).getId());
     }
 
+    @Test
+    void findFeedPageBeforeBreaksTies() {
+        jdbcTemplate.update("INSERT INTO item_requests(id, description, requester_id, created) VALUES (4, 'Хотел бы воспользоваться дрелью', 4, '2023-04-02 12:34:48')");
+        List<ItemRequest> itemRequests = itemRequestRepository.findFeedPageBefore(1L, FIRST.getTime(), FIRST.getId(),
+                PageRequest.of(0, 1));
+        assertEquals(4, itemRequests.get(0).getId());
+        itemRequests = itemRequestRepository.findFeedPageBefore(1L, FIRST.getTime(), FIRST.getId(),
+                PageRequest.of(1, 1));
+        assertEquals(2, itemRequests.get(0).getId());
+    }
+
+    @Test
+    void findLatest() {
+        List<ItemRequest> itemRequests = itemRequestRepository.findLatest(FIRST.getTime(), PageRequest.of(0, 2));
+        assertEquals(2, itemRequests.size());
+        assertEquals(1, itemRequests.get(0).getId());
+        assertEquals(2, itemRequests.get(1).getId());
+        assertEquals(2L, itemRequests.get(1).getRequester().getId());
+    }
+
+    @Test
+    void findFeedPageBefore() {
+        List<ItemRequest> itemRequests = itemRequestRepository.findFeedPageBefore(2L, LocalDateTime.of(2023, 4, 3, 15, 34, 48), 1L,
+                PageRequest.of(0, 10));
+        assertEquals(1, itemRequests.size());
+        assertEquals(3, itemRequests.get(0).getId());
+    }
+
     @Test
     void save() {
         ItemRequest itemRequest = new ItemRequest();
@@ -62,4 +98,14 @@ class ItemRequestRepositoryTest extends BaseTest {
         assertTrue(itemRequest.isPresent());
         assertEquals("Хотел бы воспользоваться мясорубкой", itemRequest.get().getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findVersionById() {
+        ItemRequestVersionRow row = itemRequestRepository.findVersionById(2L).orElseThrow();
+        assertEquals(0L, row.getVersion());
+        assertEquals(1L, row.getItemCount());
+        assertEquals(0L, row.getItemVersions());
+        assertEquals(3L, row.getLastItemId());
+        assertTrue(itemRequestRepository.findVersionById(99L).isEmpty());
+    }
+}
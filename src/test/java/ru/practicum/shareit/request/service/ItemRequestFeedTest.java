@@ -0,0 +1,110 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.TimeIdCursor;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemFacetIndex;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ItemRequestFeedTest extends BaseTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 4, 3, 16, 0);
+    private static final TimeIdCursor FIRST = TimeIdCursor.first();
+
+    private final ItemRequestRepository itemRequestRepository = mock(ItemRequestRepository.class);
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemFacetIndex itemFacetIndex = mock(ItemFacetIndex.class);
+    private final User alice = buildUser(1L, "alice@mail.com", "alice");
+    private final User bob = buildUser(2L, "bob@mail.com", "bob");
+
+    @BeforeEach
+    void setUp() {
+        when(itemRequestRepository.findLatest(any(), any())).thenReturn(List.of(
+                request(3L, alice, 1), request(2L, bob, 2), request(1L, alice, 3)));
+        when(itemRepository.findAllByRequestIdIn(anyList())).thenReturn(List.of(
+                buildItem(10L, "Дрель", "Простая дрель", true, bob, request(3L, alice, 1))));
+        when(itemFacetIndex.tagsOf(10L)).thenReturn(List.of("инструмент"));
+    }
+
+    @Test
+    void pagesOtherUsersRequestsNewestFirst() {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestRepository, itemRepository, itemFacetIndex, 5);
+        List<ItemRequestDto> page = feed.page(2L, FIRST.getTime(), FIRST.getId(), 0, 10);
+        assertEquals(List.of(3L, 1L), ids(page));
+        assertEquals(1, page.get(0).getItems().size());
+        assertEquals(List.of("инструмент"), page.get(0).getItems().get(0).getTags());
+        assertTrue(page.get(1).getItems().isEmpty());
+        assertEquals(List.of(1L), ids(feed.page(2L, FIRST.getTime(), FIRST.getId(), 1, 10)));
+        assertEquals(List.of(2L, 1L), ids(feed.page(3L, NOW.minusHours(1), 3L, 0, 10)));
+        verify(itemRequestRepository, times(1)).findLatest(any(), any());
+    }
+
+    @Test
+    void fallsBackWhenPageReachesPastTruncatedRing() {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestRepository, itemRepository, itemFacetIndex, 2);
+        assertEquals(List.of(3L, 2L), ids(feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 2)));
+        assertNull(feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 3));
+        assertNull(feed.page(2L, FIRST.getTime(), FIRST.getId(), 0, 2));
+    }
+
+    @Test
+    void addEvictsOldestAndKeepsOrder() {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestRepository, itemRepository, itemFacetIndex, 3);
+        feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 1);
+        feed.add(request(4L, bob, 0));
+        feed.add(request(5L, bob, 2));
+        feed.add(request(4L, bob, 0));
+        assertEquals(List.of(4L, 3L, 5L), ids(feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 3)));
+        assertNull(feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 4));
+        feed.add(request(6L, bob, 9));
+        assertEquals(List.of(4L, 3L, 5L), ids(feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 3)));
+    }
+
+    @Test
+    void addBeforeFirstUseIsLeftToLoad() {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestRepository, itemRepository, itemFacetIndex, 5);
+        feed.add(request(4L, bob, 0));
+        assertEquals(List.of(3L, 2L, 1L), ids(feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 5)));
+    }
+
+    @Test
+    void tracksLinkedItems() {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestRepository, itemRepository, itemFacetIndex, 5);
+        feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 1);
+        ItemRequest linked = request(3L, alice, 1);
+        feed.itemSaved(buildItem(10L, "Дрель Bosch", "Ударная дрель", true, bob, linked));
+        feed.itemSaved(buildItem(11L, "Шуруповерт", "Аккумуляторный", true, bob, linked));
+        feed.itemSaved(buildItem(12L, "Пила", "Ручная", true, bob, null));
+        List<ItemRequestDto> page = feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 1);
+        assertEquals(List.of("Дрель Bosch", "Шуруповерт"), page.get(0).getItems().stream()
+                .map(item -> item.getName())
+                .collect(Collectors.toList()));
+        Item removed = buildItem(10L, "Дрель Bosch", "Ударная дрель", true, bob, linked);
+        feed.itemRemoved(removed);
+        assertEquals(1, feed.page(4L, FIRST.getTime(), FIRST.getId(), 0, 1).get(0).getItems().size());
+    }
+
+    private ItemRequest request(long id, User requester, int hoursAgo) {
+        ItemRequest request = buildItemRequest(id, requester, "request " + id);
+        request.setCreated(NOW.minusHours(hoursAgo));
+        return request;
+    }
+
+    private static List<Long> ids(List<ItemRequestDto> requests) {
+        return requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+    }
+}
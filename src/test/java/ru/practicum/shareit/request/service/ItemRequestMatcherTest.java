@@ -0,0 +1,92 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.item.model.ItemSearchRow;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemRequestMatcherTest extends BaseTest {
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final User requester = buildUser(6L, "mail@mail.com", "name");
+    private ExecutorService worker;
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.findSearchRowsAfter(anyLong(), any())).thenReturn(List.of(
+                buildRow(1L, 4L, "Дрель", "Ударная дрель"),
+                buildRow(2L, 5L, "Отвёртка", "Аккумуляторная отвёртка, дрель в подарок"),
+                buildRow(3L, 6L, "Бензопила", "Бензопила \"Дружба\"")));
+        worker = Executors.newSingleThreadExecutor();
+    }
+
+    @Test
+    void matchRanksOwnersBySharedTerms() {
+        ItemRequestMatcher matcher = warmMatcher(5, 10);
+        assertEquals(List.of(5L, 4L), matcher.match(6L, "Нужна дрель или отвёртка"));
+        assertEquals(List.of(4L), matcher.match(5L, "Нужна дрель или отвёртка"));
+        assertEquals(List.of(6L), matcher.match(4L, "бензопила"));
+        assertTrue(matcher.match(4L, "мясорубка").isEmpty());
+    }
+
+    @Test
+    void indexAndRemoveKeepTermsCurrent() {
+        ItemRequestMatcher matcher = warmMatcher(5, 10);
+        matcher.remove(2L);
+        assertTrue(matcher.match(6L, "отвёртка").isEmpty());
+        matcher.index(1L, 4L, "Отвёртка", "Крестовая");
+        assertEquals(List.of(4L), matcher.match(6L, "отвёртка"));
+        assertTrue(matcher.match(6L, "дрель").isEmpty());
+    }
+
+    @Test
+    void submitDeliversToBoundedInboxesOfTopOwners() throws Exception {
+        ItemRequestMatcher matcher = warmMatcher(1, 2);
+        matcher.submit(buildItemRequest(10L, requester, "Нужна отвёртка"));
+        matcher.submit(buildItemRequest(11L, requester, "Отвёртка или дрель"));
+        matcher.submit(buildItemRequest(12L, requester, "Аккумуляторная отвёртка"));
+        awaitWorker();
+        assertEquals(List.of(12L, 11L), matcher.inbox(5L));
+        assertTrue(matcher.inbox(4L).isEmpty());
+        assertTrue(matcher.inbox(6L).isEmpty());
+    }
+
+    @Test
+    void submitIsDroppedWhenWorkerRejects() {
+        ItemRequestMatcher matcher = warmMatcher(5, 10);
+        worker.shutdown();
+        matcher.submit(buildItemRequest(10L, requester, "Нужна отвёртка"));
+        assertTrue(matcher.inbox(5L).isEmpty());
+    }
+
+    private ItemRequestMatcher warmMatcher(int topOwners, int inboxSize) {
+        ItemRequestMatcher matcher = new ItemRequestMatcher(itemRepository, topOwners, inboxSize, worker);
+        matcher.warmUp();
+        return matcher;
+    }
+
+    private void awaitWorker() throws InterruptedException {
+        worker.shutdown();
+        assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static ItemSearchRow buildRow(Long id, Long ownerId, String name, String description) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ItemSearchRow.class,
+                Map.of("id", id, "ownerId", ownerId, "name", name, "description", description, "available", true));
+    }
+}
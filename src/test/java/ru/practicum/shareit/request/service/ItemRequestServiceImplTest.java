@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -8,37 +9,62 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.TimeIdCursor;
 import ru.practicum.shareit.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemFacetIndex;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestPageDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestVersionRow;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserIdentityCache;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @AutoConfigureMockMvc
-@WebMvcTest({ItemRequestServiceImpl.class, ItemRequestRepository.class, UserRepository.class, ItemRepository.class})
+@WebMvcTest({ItemRequestServiceImpl.class, ItemRequestRepository.class, UserRepository.class, ItemRepository.class, ItemRequestFeed.class,
+        ItemRequestMatcher.class, ItemFacetIndex.class, UserIdentityCache.class})
 class ItemRequestServiceImplTest extends BaseTest {
 
     @Autowired
     private ItemRequestServiceImpl service;
+    @Autowired
+    private UserIdentityCache userIdentityCache;
     @MockBean
     private ItemRequestRepository itemRequestRepository;
     @MockBean
     private UserRepository userRepository;
     @MockBean
     private ItemRepository itemRepository;
+    @MockBean
+    private ItemRequestFeed itemRequestFeed;
+    @MockBean
+    private ItemRequestMatcher itemRequestMatcher;
+    @MockBean
+    private ItemFacetIndex itemFacetIndex;
+
+    @AfterEach
+    void clearIdentityCache() {
+        userIdentityCache.clear();
+    }
 
     @Test
     void createUserNotFound() {
@@ -62,6 +88,8 @@ class ItemRequestServiceImplTest extends BaseTest {
         ItemRequestDto created = service.create(buildItemRequestDto(1L, 2L, "abcde"), 2L);
         assertEquals(1L, created.getId());
         assertFalse(created.getItems().isEmpty());
+        verify(itemRequestFeed, times(1)).add(any());
+        verify(itemRequestMatcher, times(1)).submit(any());
     }
 
     @Test
@@ -88,6 +116,26 @@ class ItemRequestServiceImplTest extends BaseTest {
         assertFalse(ir.getItems().isEmpty());
     }
 
+    @Test
+    void getETag() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        ItemRequestVersionRow row = new SpelAwareProxyProjectionFactory().createProjection(ItemRequestVersionRow.class,
+                Map.of("version", 0L, "itemCount", 2L, "itemVersions", 7L, "lastItemId", 5L));
+        when(itemRequestRepository.findVersionById(1L)).thenReturn(Optional.of(row));
+        assertEquals("W/\"1-0-2-7-5\"", service.getETag(2L, 1L));
+        assertNull(service.getETag(2L, 3L));
+        assertNull(service.getETag(8L, 1L));
+    }
+
+    @Test
+    void repeatedCallsResolveUserOnce() throws UserNotFoundException {
+        when(userRepository.findById(3L)).thenReturn(Optional.of(buildUser(3L, "mail@mail.com", "name")));
+        when(itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(3L)).thenReturn(List.of());
+        service.getAllOwnRequests(3L);
+        service.getAllOwnRequests(3L);
+        verify(userRepository, times(1)).findById(3L);
+    }
+
     @Test
     void getAllOwnRequestsUserNotFound() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
@@ -128,7 +176,8 @@ class ItemRequestServiceImplTest extends BaseTest {
         ItemRequest e1 = buildItemRequest(1L, buildUser(3L, "email@mail.com", "name"), "abcde");
         ItemRequest e2 = buildItemRequest(2L, buildUser(4L, "email@mail.com", "name"), "abcde");
         ItemRequest e3 = buildItemRequest(3L, buildUser(5L, "email@mail.com", "name"), "abcde");
-        when(itemRequestRepository.findAllByRequesterIdNotOrderByCreatedDesc(anyLong(), any())).thenReturn(new PageImpl<>(List.of(e1, e2, e3)));
+        when(itemRequestRepository.findFeedPageBefore(eq(2L), any(), eq(Long.MAX_VALUE), eq(PageRequest.of(0, 15)))).thenReturn(List.of(e1, e2, e3));
+        when(itemRequestFeed.page(anyLong(), any(), anyLong(), anyInt(), anyInt())).thenReturn(null);
         when(itemRepository.findAllByRequestIdIn(anyList())).thenReturn(List.of(
                 buildItem(4L, "name", "description", true, buildUser(6L, "mail@mail.com", "name"), e1),
                 buildItem(5L, "name", "description", true, buildUser(7L, "mail@mail.com", "name"), e1),
@@ -155,6 +204,84 @@ class ItemRequestServiceImplTest extends BaseTest {
         assertThrows(ValidationException.class, () -> service.getAllUserRequests(2L, 0, 0), "Error");
     }
 
+    @Test
+    void getAllUserRequestsFromFeed() throws UserNotFoundException, ValidationException {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        when(itemRequestFeed.page(eq(2L), any(), eq(Long.MAX_VALUE), eq(10), eq(5))).thenReturn(List.of(buildItemRequestDto(3L, 4L, "abcde")));
+        List<ItemRequestDto> requests = service.getAllUserRequests(2L, 12, 5);
+        assertEquals(1, requests.size());
+        verify(itemRequestRepository, never()).findFeedPageBefore(anyLong(), any(), anyLong(), any());
+        verify(itemRepository, never()).findAllByRequestIdIn(anyList());
+    }
+
+    @Test
+    void getAllUserRequestsAfterFromFeed() throws UserNotFoundException, ValidationException {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        ItemRequestDto newest = buildItemRequestDto(3L, 4L, "abcde");
+        newest.setCreated(LocalDateTime.of(2023, 4, 3, 15, 34, 48));
+        ItemRequestDto older = buildItemRequestDto(1L, 4L, "abcde");
+        older.setCreated(LocalDateTime.of(2023, 4, 2, 15, 34, 48));
+        when(itemRequestFeed.page(eq(2L), any(), anyLong(), eq(0), eq(2))).thenReturn(List.of(newest, older));
+        ItemRequestPageDto page = service.getAllUserRequestsAfter(2L, null, 1);
+        assertEquals(List.of(newest), page.getRequests());
+        TimeIdCursor next = TimeIdCursor.decode(page.getNextCursor());
+        assertEquals(newest.getCreated(), next.getTime());
+        assertEquals(3L, next.getId());
+        verify(itemRequestRepository, never()).findFeedPageBefore(anyLong(), any(), anyLong(), any());
+    }
+
+    @Test
+    void getAllUserRequestsAfterFromDatabase() throws UserNotFoundException, ValidationException {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        ItemRequest e1 = buildItemRequest(1L, buildUser(3L, "email@mail.com", "name"), "abcde");
+        when(itemRequestRepository.findFeedPageBefore(anyLong(), any(), anyLong(), any())).thenReturn(List.of(e1));
+        when(itemRequestFeed.page(anyLong(), any(), anyLong(), anyInt(), anyInt())).thenReturn(null);
+        when(itemRepository.findAllByRequestIdIn(anyList())).thenReturn(List.of(
+                buildItem(4L, "name", "description", true, buildUser(6L, "mail@mail.com", "name"), e1)));
+        String cursor = TimeIdCursor.encode(LocalDateTime.of(2023, 4, 3, 15, 34, 48), 5L);
+        ItemRequestPageDto page = service.getAllUserRequestsAfter(2L, cursor, 5);
+        assertEquals(1, page.getRequests().size());
+        assertEquals(1, page.getRequests().get(0).getItems().size());
+        assertNull(page.getNextCursor());
+        verify(itemRequestRepository, times(1)).findFeedPageBefore(eq(2L), eq(LocalDateTime.of(2023, 4, 3, 15, 34, 48)), eq(5L),
+                eq(PageRequest.of(0, 6)));
+    }
+
+    @Test
+    void getAllUserRequestsAfterInvalidCursor() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        assertThrows(ValidationException.class, () -> service.getAllUserRequestsAfter(2L, "%%%", 5));
+    }
+
+    @Test
+    void getInboxNewestFirst() throws UserNotFoundException {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        ItemRequest older = buildItemRequest(1L, buildUser(3L, "email@mail.com", "name"), "дрель");
+        older.setCreated(LocalDateTime.of(2023, 4, 2, 15, 34, 48));
+        ItemRequest newer = buildItemRequest(4L, buildUser(3L, "email@mail.com", "name"), "отвёртка");
+        newer.setCreated(LocalDateTime.of(2023, 4, 3, 15, 34, 48));
+        when(itemRequestMatcher.inbox(2L)).thenReturn(List.of(4L, 1L));
+        when(itemRequestRepository.findAllById(List.of(4L, 1L))).thenReturn(List.of(older, newer));
+        when(itemRepository.findAllByRequestIdIn(anyList())).thenReturn(List.of());
+        List<ItemRequestDto> inbox = service.getInbox(2L);
+        assertEquals(4L, inbox.get(0).getId());
+        assertEquals(1L, inbox.get(1).getId());
+    }
+
+    @Test
+    void getInboxEmpty() throws UserNotFoundException {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        when(itemRequestMatcher.inbox(2L)).thenReturn(List.of());
+        assertTrue(service.getInbox(2L).isEmpty());
+        verify(itemRequestRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getInboxUserNotFound() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> service.getInbox(2L));
+    }
+
     private static Stream<Arguments> prepareDataForCreate() {
         return Stream.of(
                 Arguments.of(null, "Description is null"),
@@ -8,21 +8,31 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.NextCursorHeader;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -131,9 +141,12 @@ class UserControllerTest extends BaseTest {
 
     @Test
     void getAll() throws Exception {
-        when(service.getAll()).thenReturn(List.of(
+        UserPageDto page = new UserPageDto();
+        page.setUsers(List.of(
                 buildUserDto(1L, "user@mail.com", "user"),
                 buildUserDto(2L, "user_user@mail.com", "user_user")));
+        page.setNextCursor("Mg");
+        when(service.getAllAfter(null, 20)).thenReturn(page);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/users")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -143,6 +156,67 @@ class UserControllerTest extends BaseTest {
                 .andExpect(jsonPath("$[0].name").value("user"))
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].email").value("user_user@mail.com"))
-                .andExpect(jsonPath("$[1].name").value("user_user"));
+                .andExpect(jsonPath("$[1].name").value("user_user"))
+                .andExpect(header().string(NextCursorHeader.NAME, "Mg"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllWithCursor() throws Exception {
+        UserPageDto page = new UserPageDto();
+        page.setUsers(List.of(buildUserDto(3L, "user@mail.com", "user")));
+        page.setNextCursor("Mw");
+        when(service.getAllAfter("", 1)).thenReturn(page);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NextCursorHeader.NAME, "Mw"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3));
+    }
+
+    @Test
+    void getAllWithSizeStartsFromFirstPage() throws Exception {
+        UserPageDto page = new UserPageDto();
+        page.setUsers(List.of());
+        when(service.getAllAfter(null, 5)).thenReturn(page);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NextCursorHeader.NAME))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void getAllSizeTooLarge() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("cursor", "")
+                        .param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).getAllAfter(any(), any());
+    }
+
+    @Test
+    void getAllInvalidCursor() throws Exception {
+        when(service.getAllAfter(any(), any())).thenThrow(new ValidationException("Invalid cursor"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users")
+                        .param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void export() throws Exception {
+        byte[] body = "{\"id\":1,\"name\":\"Анна\",\"email\":\"anna@mail.com\"}\n".getBytes(StandardCharsets.UTF_8);
+        when(service.export()).thenReturn(out -> out.write(body));
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().bytes(body));
+    }
+}
@@ -4,14 +4,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import ru.practicum.shareit.BaseTest;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserRow;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,7 +38,7 @@ class UserRepositoryTest extends BaseTest {
     @Test
     void saveDuplicateEmail() {
         User user = buildUser(null, "user@user.com", "user78");
-        assertThrows(DataIntegrityViolationException.class, () -> userRepository.save(user));
+        assertThrows(DataIntegrityViolationException.class, () -> userRepository.saveAndFlush(user));
     }
 
     @Test
@@ -50,4 +54,22 @@ class UserRepositoryTest extends BaseTest {
         assertEquals("practicum@yandex.ru", user.get().getEmail());
     }
 
+    @Test
+    void findPageAfter() {
+        List<UserRow> rows = userRepository.findPageAfter(1L, PageRequest.of(0, 2));
+        assertEquals(2, rows.size());
+        assertEquals(2L, rows.get(0).getId());
+        assertEquals(3L, rows.get(1).getId());
+    }
+
+    @Test
+    void streamAll() {
+        try (Stream<UserRow> rows = userRepository.streamAll()) {
+            List<UserRow> all = rows.collect(Collectors.toList());
+            assertEquals(4, all.size());
+            assertEquals(4L, all.get(3).getId());
+            assertEquals("practicum@yandex.ru", all.get(3).getEmail());
+        }
+    }
+
 }
\ No newline at end of file
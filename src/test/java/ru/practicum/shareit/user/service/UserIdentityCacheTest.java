@@ -0,0 +1,84 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class UserIdentityCacheTest extends BaseTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserIdentityCache cache = new UserIdentityCache(userRepository, 16);
+
+    @Test
+    void secondLookupIsServedFromCache() throws Exception {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        User first = cache.require(2L);
+        first.setName("changed");
+        User second = cache.require(2L);
+        assertEquals("name", second.getName());
+        assertNotSame(first, second);
+        verify(userRepository, times(1)).findById(2L);
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void unknownUserIsNotCached() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        assertThrows(UserNotFoundException.class, () -> cache.require(3L));
+        assertFalse(cache.exists(3L));
+        verify(userRepository, times(2)).findById(3L);
+    }
+
+    @Test
+    void invalidateReloads() throws Exception {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")),
+                Optional.of(buildUser(2L, "mail@mail.com", "renamed")));
+        cache.require(2L);
+        cache.invalidate(2L);
+        assertEquals("renamed", cache.require(2L).getName());
+        assertEquals("renamed", cache.require(2L).getName());
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void loadRacingInvalidateIsNotCached() throws Exception {
+        when(userRepository.findById(2L)).thenAnswer(invocation -> {
+            cache.invalidate(2L);
+            return Optional.of(buildUser(2L, "mail@mail.com", "name"));
+        });
+        cache.require(2L);
+        cache.require(2L);
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void boundedByCapacity() {
+        UserIdentityCache small = new UserIdentityCache(userRepository, 2);
+        when(userRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.of(buildUser(invocation.getArgument(0), "mail@mail.com", "name")));
+        for (long id = 1; id <= 5; id++) {
+            assertTrue(small.exists(id));
+        }
+        assertEquals(2, small.capacity());
+        assertTrue(small.evictionCount() >= 3);
+    }
+
+    @Test
+    void exposesHitRatio() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(buildUser(2L, "mail@mail.com", "name")));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.exists(2L);
+        cache.exists(2L);
+        assertEquals(1.0, registry.get("users.identity.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(0.5, registry.get("users.identity.cache.hit.ratio").gauge().value());
+    }
+}
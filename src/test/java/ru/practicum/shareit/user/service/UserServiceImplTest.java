@@ -8,30 +8,47 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.BaseTest;
+import ru.practicum.shareit.IdCursor;
+import ru.practicum.shareit.NdjsonStreamWriter;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
+import ru.practicum.shareit.user.model.UserRow;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @AutoConfigureMockMvc
-@WebMvcTest({UserServiceImpl.class, UserRepository.class})
+@WebMvcTest({UserServiceImpl.class, UserRepository.class, UserIdentityCache.class, NdjsonStreamWriter.class})
 class UserServiceImplTest extends BaseTest {
     @Autowired
     private UserServiceImpl service;
     @MockBean
     UserRepository userRepository;
+    @MockBean
+    private UserIdentityCache userIdentityCache;
 
     @ParameterizedTest
     @MethodSource("prepareDataForCreate")
@@ -64,6 +81,7 @@ class UserServiceImplTest extends BaseTest {
         assertEquals(3L, updated.getId());
         assertEquals("updated@mail.com", updated.getEmail());
         assertEquals("name updated", updated.getName());
+        verify(userIdentityCache, times(1)).invalidate(3L);
     }
 
     @Test
@@ -81,6 +99,7 @@ class UserServiceImplTest extends BaseTest {
         assertEquals(3L, updated.getId());
         assertEquals("email@mail.com", updated.getEmail());
         assertEquals("name", updated.getName());
+        verify(userIdentityCache, times(1)).invalidate(3L);
     }
 
     @Test
@@ -100,13 +119,44 @@ class UserServiceImplTest extends BaseTest {
     }
 
     @Test
-    void getAll() {
-        when(userRepository.findAll()).thenReturn(List.of(
-                buildUser(1L, "email@mail.com", "name"),
-                buildUser(2L, "user@mail.com", "anna")
-        ));
-        List<UserDto> users = service.getAll();
-        assertEquals(2, users.size());
+    void getAllAfter() throws Exception {
+        when(userRepository.findPageAfter(eq(1L), any())).thenReturn(List.of(
+                buildRow(2L, "user@mail.com", "user"),
+                buildRow(3L, "anna@mail.com", "anna")));
+        UserPageDto page = service.getAllAfter(IdCursor.encode(1L), 1);
+        assertEquals(1, page.getUsers().size());
+        assertEquals(2L, page.getUsers().get(0).getId());
+        assertEquals(2L, IdCursor.decode(page.getNextCursor(), 0));
+        verify(userRepository, times(1)).findPageAfter(1L, PageRequest.of(0, 2));
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllAfterLastPage() throws Exception {
+        when(userRepository.findPageAfter(eq(0L), any())).thenReturn(List.of(buildRow(1L, "user@mail.com", "user")));
+        UserPageDto page = service.getAllAfter(null, 5);
+        assertEquals(1, page.getUsers().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAllAfterValidationError() {
+        assertThrows(ValidationException.class, () -> service.getAllAfter(null, 0));
+        assertThrows(ValidationException.class, () -> service.getAllAfter("%%%", 5));
+    }
+
+    @Test
+    void export() throws Exception {
+        when(userRepository.streamAll()).thenReturn(Stream.of(
+                buildRow(1L, "user@mail.com", "user"),
+                buildRow(2L, "anna@mail.com", "Анна")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":1"));
+        assertTrue(lines[1].contains("\"name\":\"Анна\""));
+        verify(userRepository, never()).findAll();
     }
 
     private static Stream<Arguments> prepareDataForCreate() {
@@ -118,4 +168,7 @@ class UserServiceImplTest extends BaseTest {
         );
     }
 
-}
\ No newline at end of file
+    private static UserRow buildRow(Long id, String email, String name) {
+        return new SpelAwareProxyProjectionFactory().createProjection(UserRow.class, Map.of("id", id, "email", email, "name", name));
+    }
+}